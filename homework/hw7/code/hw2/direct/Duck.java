@@ -1,7 +1,12 @@
 public class Duck{
+    public static EventSink sink = new PrintSink(System.out);
+    public static int tick;
+    private static int nextId;
+    int id;
     int doWhat;
     boolean canFly;
     public Duck(boolean _canFly, int _doWhat){
+        id = nextId++;
         canFly = _canFly;
         doWhat = _doWhat;
     }
@@ -15,23 +20,19 @@ public class Duck{
 
     }
     public void swim(){
-        System.out.println("Duck: swim");
+        sink.emit(id, Flock.SWIM, tick);
     }
     public void fly(){
         if(!canFly)
             return;
-        System.out.println("Duck: fly with wings");
+        sink.emit(id, Flock.FLY, tick);
     }
     public void sound(){
         switch(doWhat){
             case 1:    // quack
-                System.out.println("Duck: quack");
-                break;
             case 2:    // squeak
-                System.out.println("Duck: squeak");
-                break;
             case 3:    // silent
-                System.out.println("Duck:");
+                sink.emit(id, Flock.SOUND + doWhat, tick);
                 break;
         }
     }
@@ -0,0 +1,82 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+// Ducks per second for the object-per-duck game loop against Flock.
+// Both apply the same modifyFly/modifyQuack rule as game.main. Text output
+// is discarded rather than written to a terminal; the ring runs write
+// binary records to a temporary file.
+// usage: java DuckBench [ducks] [ticks]
+public class DuckBench{
+    public static void main(String[] args) throws IOException{
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        PrintStream out = System.out;
+        PrintStream discard = new PrintStream(new OutputStream(){
+            public void write(int b){}
+            public void write(byte[] b, int off, int len){}
+        });
+        File file = File.createTempFile("ducks", ".bin");
+        file.deleteOnExit();
+        for(int round=0;round<3;round++){
+            out.format("round %d%n", round+1);
+            Duck.sink = new PrintSink(discard);
+            report(out, "objects", n, ticks, objects(n, ticks));
+            RingBufferSink ring = new RingBufferSink(file.getPath(), 1 << 16);
+            Duck.sink = ring;
+            long nanos = objects(n, ticks);
+            ring.close();
+            report(out, "objects+ring", n, ticks, nanos);
+            report(out, "flock", n, ticks, flock(n, ticks, null));
+            ring = new RingBufferSink(file.getPath(), 1 << 16);
+            nanos = flock(n, ticks, ring);
+            ring.close();
+            report(out, "flock+ring", n, ticks, nanos);
+        }
+    }
+    private static long objects(int n, int ticks){
+        Random ran = new Random(1);
+        Duck[] ducks = new Duck[n];
+        for(int i=0;i<n;i++){
+            game.changeType(ran.nextInt(5));
+            ducks[i] = game.d;
+        }
+        long t0 = System.nanoTime();
+        for(int t=0;t<ticks;t++){
+            Duck.tick = t;
+            for(int i=0;i<n;i++){
+                Duck d = ducks[i];
+                d.doAll();
+                if(t % 2 == 0 && ran.nextInt(2)==0)
+                    d.modifyFly(!d.canFly);
+                if(t % 2 == 0)
+                    d.modifyQuack(ran.nextInt(3)+1);
+            }
+        }
+        return System.nanoTime() - t0;
+    }
+    private static long flock(int n, int ticks, EventSink sink){
+        Random ran = new Random(1);
+        Flock f = new Flock(n);
+        f.setSink(sink);
+        for(int i=0;i<n;i++)
+            f.add(ran.nextInt(5), true, Flock.QUACK);
+        long t0 = System.nanoTime();
+        for(int t=0;t<ticks;t++){
+            f.tick();
+            if(t % 2 == 0){
+                for(int i=0;i<n;i++){
+                    if(ran.nextInt(2)==0)
+                        f.modifyFly(i, !f.canFly(i));
+                    f.modifyQuack(i, ran.nextInt(3)+1);
+                }
+            }
+        }
+        return System.nanoTime() - t0;
+    }
+    private static void report(PrintStream out, String name, int n, int ticks, long nanos){
+        out.format("  %-12s %14.0f ducks/s%n", name, (double)n * ticks / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,5 @@
+// Receives one record per duck behavior. event is a Flock event slot:
+// SWIM, FLY, DISPLAY + duck type or SOUND + sound kind.
+public interface EventSink{
+    public void emit(int duck, int event, int tick);
+}
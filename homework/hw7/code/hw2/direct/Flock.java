@@ -0,0 +1,98 @@
+// Data-oriented duck storage: one column per attribute instead of one Duck
+// object per duck. canFly is a packed bitset and sound kind is one byte,
+// so modifyFly/modifyQuack are single writes and a tick walks whole arrays.
+public class Flock{
+    public static final int DUCK = 0, DECOY = 1, MALLARD = 2, REDHEAD = 3, RUBBER = 4;
+    public static final int QUACK = 1, SQUEAK = 2, SILENT = 3;
+    // slots of an event count array: SWIM, FLY, DISPLAY+type, SOUND+doWhat
+    public static final int SWIM = 0, FLY = 1, DISPLAY = 2, SOUND = DISPLAY + RUBBER + 1;
+    public static final int EVENTS = SOUND + SILENT + 1;
+    int size;
+    byte[] type;
+    long[] canFly;
+    byte[] doWhat;
+    long[] events = new long[EVENTS];
+    int ticks;
+    EventSink sink;    // null: only count events
+
+    public Flock(int capacity){
+        type = new byte[capacity];
+        canFly = new long[(capacity + 63) >>> 6];
+        doWhat = new byte[capacity];
+    }
+    public int add(int _type, boolean _canFly, int _doWhat){
+        int id = size++;
+        type[id] = (byte)_type;
+        doWhat[id] = (byte)_doWhat;
+        modifyFly(id, _canFly);
+        return id;
+    }
+    public int size(){
+        return size;
+    }
+    public boolean canFly(int id){
+        return (canFly[id >>> 6] & (1L << id)) != 0;
+    }
+    public int doWhat(int id){
+        return doWhat[id];
+    }
+    public void modifyFly(int id, boolean _canFly){
+        if(_canFly)
+            canFly[id >>> 6] |= 1L << id;
+        else
+            canFly[id >>> 6] &= ~(1L << id);
+    }
+    public void modifyQuack(int id, int _doWhat){
+        doWhat[id] = (byte)_doWhat;
+    }
+    public void setSink(EventSink _sink){
+        sink = _sink;
+    }
+    // doAll() for every duck: display, swim, fly, sound
+    public void tick(){
+        tick(0, size, events, ticks++);
+    }
+    // doAll() for ducks [from, to), counted into counts. Ranges that start on
+    // a multiple of 64 own whole canFly words, so disjoint ranges can run on
+    // different threads.
+    public void tick(int from, int to, long[] counts, int tick){
+        if(sink != null)
+            emit(from, to, tick);
+        for(int i=from;i<to;i++)
+            counts[DISPLAY + type[i]]++;
+        counts[SWIM] += to - from;
+        for(int i=from;i<to;){
+            int w = i >>> 6;
+            int end = Math.min(to, (w + 1) << 6);
+            long bits = canFly[w] >>> (i & 63);
+            if(end - i < 64)
+                bits &= (1L << (end - i)) - 1;
+            counts[FLY] += Long.bitCount(bits);
+            i = end;
+        }
+        for(int i=from;i<to;i++)
+            counts[SOUND + doWhat[i]]++;
+    }
+    private void emit(int from, int to, int tick){
+        for(int i=from;i<to;i++){
+            if(type[i] != DUCK)
+                sink.emit(i, DISPLAY + type[i], tick);
+            sink.emit(i, SWIM, tick);
+            if(canFly(i))
+                sink.emit(i, FLY, tick);
+            sink.emit(i, SOUND + doWhat[i], tick);
+        }
+    }
+    public long getSwims(){
+        return events[SWIM];
+    }
+    public long getFlies(){
+        return events[FLY];
+    }
+    public long getSounds(int kind){
+        return events[SOUND + kind];
+    }
+    public long getDisplays(int _type){
+        return events[DISPLAY + _type];
+    }
+}
@@ -0,0 +1,12 @@
+import java.io.PrintStream;
+
+// Prints events as text as they happen, the way the ducks always did.
+public class PrintSink implements EventSink{
+    private PrintStream out;
+    public PrintSink(PrintStream _out){
+        out = _out;
+    }
+    public void emit(int duck, int event, int tick){
+        TextRenderer.render(event, out);
+    }
+}
@@ -0,0 +1,120 @@
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Writes each event as a 12 byte record (duck, event, tick; big-endian ints)
+// into a preallocated ring. A background thread drains the ring to a file.
+// emit() claims a slot with one atomic increment and allocates nothing; when
+// the ring is full it waits for the drainer instead of dropping records, and
+// throws once close() has begun or the drainer has stopped on a write error.
+public class RingBufferSink implements EventSink, Closeable{
+    private static final int RECORD = 12;
+    private static final long CLOSED = 1L << 62;    // added to head by the drainer as it exits
+    private final int mask;
+    private final int[] records;
+    private final AtomicLongArray published;    // sequence + 1 once a slot is written
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail = 0;
+    private volatile boolean running = true;
+    private final FileChannel out;
+    private final ByteBuffer buffer;
+    private final Thread drainer;
+    private volatile IOException failure;
+    private volatile boolean stopped;    // the drainer has exited; set after failure
+
+    // capacity is rounded up to a power of two
+    public RingBufferSink(String path, int capacity) throws IOException{
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+        records = new int[size * 3];
+        published = new AtomicLongArray(size);
+        out = new FileOutputStream(path).getChannel();
+        buffer = ByteBuffer.allocateDirect(Math.min(size, 1 << 14) * RECORD);
+        drainer = new Thread(new Runnable(){
+            public void run(){
+                drain();
+            }
+        }, "event-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+    public void emit(int duck, int event, int tick){
+        checkOpen();
+        long seq = head.getAndIncrement();
+        if(seq >= CLOSED)
+            throw closed();
+        // a claimed slot must be published even after close(), or the drainer
+        // would wait for it; only a dead drainer ends the wait
+        while(seq - tail > mask){
+            if(stopped)
+                throw closed();
+            Thread.onSpinWait();
+        }
+        int i = (int)(seq & mask);
+        records[i*3] = duck;
+        records[i*3+1] = event;
+        records[i*3+2] = tick;
+        published.lazySet(i, seq + 1);
+    }
+    // a record accepted after this would never reach the file
+    private void checkOpen(){
+        if(stopped || !running)
+            throw closed();
+    }
+    private RuntimeException closed(){
+        return failure != null ? new UncheckedIOException(failure) : new IllegalStateException("sink closed");
+    }
+    public void close() throws IOException{
+        running = false;
+        LockSupport.unpark(drainer);
+        try{
+            drainer.join();
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        out.close();
+        if(failure != null)
+            throw failure;
+    }
+    private void drain(){
+        try{
+            long next = tail;
+            while(true){
+                boolean stopping = !running;
+                long seq = next;
+                while(buffer.remaining() >= RECORD){
+                    int i = (int)(seq & mask);
+                    if(published.get(i) != seq + 1)
+                        break;
+                    buffer.putInt(records[i*3]).putInt(records[i*3+1]).putInt(records[i*3+2]);
+                    seq++;
+                }
+                if(seq != next){
+                    next = seq;
+                    tail = next;
+                    flush();
+                }else if(stopping && head.compareAndSet(next, next + CLOSED)){
+                    return;    // every claimed slot was drained, and no more can be claimed
+                }else{
+                    LockSupport.parkNanos(100000);
+                }
+            }
+        }catch(IOException e){
+            failure = e;
+        }finally{
+            stopped = true;
+        }
+    }
+    private void flush() throws IOException{
+        buffer.flip();
+        while(buffer.hasRemaining())
+            out.write(buffer);
+        buffer.clear();
+    }
+}
@@ -0,0 +1,47 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+// Turns behavior events back into the text the ducks used to print.
+public class TextRenderer{
+    private static final String[] TEXT = new String[Flock.EVENTS];
+    static{
+        TEXT[Flock.SWIM] = "Duck: swim";
+        TEXT[Flock.FLY] = "Duck: fly with wings";
+        TEXT[Flock.DISPLAY + Flock.DECOY] = "I am Decoy!";
+        TEXT[Flock.DISPLAY + Flock.MALLARD] = "I am Mallard!";
+        TEXT[Flock.DISPLAY + Flock.REDHEAD] = "I am Red Head!";
+        TEXT[Flock.DISPLAY + Flock.RUBBER] = "I am Rubber!";
+        TEXT[Flock.SOUND + Flock.QUACK] = "Duck: quack";
+        TEXT[Flock.SOUND + Flock.SQUEAK] = "Duck: squeak";
+        TEXT[Flock.SOUND + Flock.SILENT] = "Duck:";
+    }
+    public static void render(int event, PrintStream out){
+        if(TEXT[event] != null)
+            out.println(TEXT[event]);
+    }
+    // Renders a RingBufferSink file, with game's iteration header per tick.
+    // usage: java TextRenderer events.bin
+    public static void main(String[] args) throws IOException{
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(args[0])));
+        int lastTick = -1;
+        try{
+            while(true){
+                in.readInt();
+                int event = in.readInt();
+                int tick = in.readInt();
+                if(tick != lastTick){
+                    System.out.println("========iteration: " + (tick+1) + " ==========");
+                    lastTick = tick;
+                }
+                render(event, System.out);
+            }
+        }catch(EOFException e){
+        }finally{
+            in.close();
+        }
+    }
+}
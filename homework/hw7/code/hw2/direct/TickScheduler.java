@@ -0,0 +1,123 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs Flock ticks on several worker threads. The flock is cut into fixed
+// partitions, each with its own SplittableRandom split from one seed, so
+// the outcome depends only on the seed and never on the thread count.
+public class TickScheduler{
+    public static final int PARTITION = 1 << 14;    // ducks, a multiple of 64
+    private Flock flock;
+    private int threads;
+    private ExecutorService workers;
+    private SplittableRandom[] random;
+    private long[][] counts;
+    private long[] latency = new long[16];
+    private int ticks;
+
+    public TickScheduler(Flock f, long seed, int _threads){
+        this(f, seed, _threads, Executors.defaultThreadFactory());
+    }
+    // factory picks the kind of worker thread, e.g. virtual threads where
+    // the JDK provides them
+    public TickScheduler(Flock f, long seed, int _threads, ThreadFactory factory){
+        flock = f;
+        threads = _threads;
+        workers = Executors.newFixedThreadPool(_threads, factory);
+        int partitions = (f.size() + PARTITION - 1) / PARTITION;
+        random = new SplittableRandom[partitions];
+        counts = new long[partitions][Flock.EVENTS];
+        SplittableRandom root = new SplittableRandom(seed);
+        for(int p=0;p<partitions;p++)
+            random[p] = root.split();
+    }
+    public void run(int times) throws InterruptedException{
+        for(int t=0;t<times;t++)
+            tick();
+    }
+    public void tick() throws InterruptedException{
+        final int tick = ticks;
+        final AtomicInteger next = new AtomicInteger();
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        for(int w=0;w<threads;w++){
+            tasks.add(new Callable<Object>(){
+                public Object call(){
+                    for(int p=next.getAndIncrement();p<random.length;p=next.getAndIncrement())
+                        tickPartition(p, tick);
+                    return null;
+                }
+            });
+        }
+        long t0 = System.nanoTime();
+        for(Future<Object> f : workers.invokeAll(tasks)){
+            try{
+                f.get();
+            }catch(ExecutionException e){
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        if(ticks == latency.length)
+            latency = Arrays.copyOf(latency, ticks*2);
+        latency[ticks++] = System.nanoTime() - t0;
+    }
+    // same rule as game.main, drawn from the partition's own stream
+    private void tickPartition(int p, int tick){
+        int from = p * PARTITION;
+        int to = Math.min(flock.size(), from + PARTITION);
+        flock.tick(from, to, counts[p], tick);
+        if(tick % 2 != 0)
+            return;
+        SplittableRandom ran = random[p];
+        for(int i=from;i<to;i++){
+            if(ran.nextInt(2)==0)
+                flock.modifyFly(i, !flock.canFly(i));
+            flock.modifyQuack(i, ran.nextInt(3)+1);
+        }
+    }
+    public long getEvents(int slot){
+        long sum = 0;
+        for(int p=0;p<counts.length;p++)
+            sum += counts[p][slot];
+        return sum;
+    }
+    // tick latency in nanoseconds at percentile pct (0-100)
+    public long percentile(double pct){
+        if(ticks == 0)
+            return 0;
+        long[] sorted = Arrays.copyOf(latency, ticks);
+        Arrays.sort(sorted);
+        int i = (int)Math.ceil(pct / 100 * ticks) - 1;
+        return sorted[Math.max(0, Math.min(ticks-1, i))];
+    }
+    public void shutdown(){
+        workers.shutdown();
+    }
+
+    // usage: java TickScheduler [ducks] [ticks] [threads] [seed]
+    public static void main(String[] args) throws InterruptedException{
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int times = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+        SplittableRandom ran = new SplittableRandom(seed);
+        Flock f = new Flock(n);
+        for(int i=0;i<n;i++)
+            f.add(ran.nextInt(5), true, Flock.QUACK);
+        TickScheduler s = new TickScheduler(f, seed, threads);
+        s.run(times);
+        s.shutdown();
+        System.out.format("%d ducks, %d ticks, %d threads%n", n, times, threads);
+        System.out.format("flies %d, quacks %d, squeaks %d, silent %d%n", s.getEvents(Flock.FLY),
+                s.getEvents(Flock.SOUND + Flock.QUACK), s.getEvents(Flock.SOUND + Flock.SQUEAK), s.getEvents(Flock.SOUND + Flock.SILENT));
+        System.out.format("tick latency p50 %.3f ms, p90 %.3f ms, p99 %.3f ms%n",
+                s.percentile(50) / 1e6, s.percentile(90) / 1e6, s.percentile(99) / 1e6);
+    }
+}
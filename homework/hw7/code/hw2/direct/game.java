@@ -1,3 +1,4 @@
+import java.io.IOException;
 import java.util.Random;
 
 public class game{
@@ -23,16 +24,26 @@ public class game{
 
         }
     }
-    public static void main(String[] args){
+    // usage: java game [events.bin] to record binary events instead of text
+    public static void main(String[] args) throws IOException{
+        RingBufferSink ring = null;
+        if(args.length > 0){
+            ring = new RingBufferSink(args[0], 1024);
+            Duck.sink = ring;
+        }
         changeType(ran.nextInt(5));
         int times = 10;
         for(int i=0;i<times;i++){
-            System.out.println("========iteration: " + (i+1) + " ==========");
+            if(ring == null)
+                System.out.println("========iteration: " + (i+1) + " ==========");
+            Duck.tick = i;
             d.doAll();
             if(i % 2 == 0 && ran.nextInt(2)==0)
                 d.modifyFly(!d.canFly);
             if(i % 2 == 0)
                 d.modifyQuack(ran.nextInt(3)+1);
         }
+        if(ring != null)
+            ring.close();
     }
 }
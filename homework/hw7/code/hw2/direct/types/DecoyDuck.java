@@ -3,6 +3,6 @@ public class DecoyDuck extends Duck{
          super(a,b);
     }
     public void display(){
-        System.out.println("I am Decoy!");
+        sink.emit(id, Flock.DISPLAY + Flock.DECOY, tick);
     }
 }
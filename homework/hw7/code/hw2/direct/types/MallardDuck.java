@@ -3,6 +3,6 @@ public class MallardDuck extends Duck{
         super(a,b);
     }
     public void display(){
-        System.out.println("I am Mallard!");
+        sink.emit(id, Flock.DISPLAY + Flock.MALLARD, tick);
     }
 }
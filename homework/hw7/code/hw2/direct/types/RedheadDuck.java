@@ -3,6 +3,6 @@ public class RedheadDuck extends Duck{
         super(a,b);
     }
     public void display(){
-        System.out.println("I am Red Head!");
+        sink.emit(id, Flock.DISPLAY + Flock.REDHEAD, tick);
     }
 }
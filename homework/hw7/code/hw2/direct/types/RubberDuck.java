@@ -3,6 +3,6 @@ public class RubberDuck extends Duck{
         super(a,b);
     }
     public void display(){
-        System.out.println("I am Rubber!");
+        sink.emit(id, Flock.DISPLAY + Flock.RUBBER, tick);
     }
 }
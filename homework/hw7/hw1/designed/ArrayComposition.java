@@ -1,22 +1,22 @@
 public class ArrayComposition implements Strategy{
-	private static int MaxLine = 150;
 	private static int numElementsInRow=10;
 	
-	public setNumElementsInRow(int in){
-		this.numElementsInRow = in;
+	public void setNumElementsInRow(int in){
+		numElementsInRow = in;
 	}
 	public Line[] arrange(Component[] components){
-		int count = 0;
-		Line[] lines = new Line[MaxLine];
-		int lineHead = 0;
-		for(int i=0;i<components.length;i++){
-			if(count++ <= numElementsInRow){
-				lines[lineHead].add(component);
-				count = 0;
-			}else{
-				lineHead ++;
-			}
-		}
-		return lines;
+		int n = 0;
+		while(n<components.length && components[n]!=null)
+			n++;
+		return Line.split(components, 0, breakLines(0, n));
 	}
-}
\ No newline at end of file
+	public Line[] arrange(ComponentStore store, int from, int to){
+		return Line.split(from, breakLines(from, to));
+	}
+	private int[] breakLines(int from, int to){
+		int[] breaks = new int[(to - from + numElementsInRow - 1) / numElementsInRow];
+		for(int i=0;i<breaks.length;i++)
+			breaks[i] = Math.min(to, from + (i+1) * numElementsInRow);
+		return breaks;
+	}
+}
@@ -3,11 +3,37 @@ import java.lang.String;
 public class Component{
 	private String text;
 	private Graph graph;
-	private int naturalSize=new int[2];
+	private int[] naturalSize=new int[2];
 	private float stretchability;	// how much the component can grow
 	private float shrinkability;	// how much the component can shrink
 	private float scale; // displaying size = size * scale
 	
+	public Component(String text, int width, int height, float stretchability, float shrinkability){
+		this.text = text;
+		this.naturalSize[0] = width;
+		this.naturalSize[1] = height;
+		this.stretchability = stretchability;
+		this.shrinkability = shrinkability;
+		this.scale = 1;
+	}
+	public String getText(){
+		return text;
+	}
+	public int getWidth(){
+		return naturalSize[0];
+	}
+	public int getHeight(){
+		return naturalSize[1];
+	}
+	public float getStretchability(){
+		return stretchability;
+	}
+	public float getShrinkability(){
+		return shrinkability;
+	}
+	public float getScale(){
+		return scale;
+	}
 	public boolean grow(float newScale){
 		if(newScale<1 || newScale>stretchability){
 			return false;
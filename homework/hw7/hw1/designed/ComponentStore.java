@@ -0,0 +1,111 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+// Struct-of-arrays storage for many components: one growable primitive
+// column per field instead of one Component object per entry. Equal texts
+// share one interned String, referenced by id.
+public class ComponentStore{
+	private static final int initSize = 1024;
+	private int size = 0;
+	private int[] width = new int[initSize];
+	private int[] height = new int[initSize];
+	private float[] stretchability = new float[initSize];
+	private float[] shrinkability = new float[initSize];
+	private float[] scale = new float[initSize];
+	private int[] textId = new int[initSize];
+	private String[] texts = new String[64];
+	private int textsHead = 0;
+	private HashMap<String, Integer> textIds = new HashMap<String, Integer>();
+	private int[] paragraphEnd = new int[64];	// exclusive end of each ended paragraph
+	private int paragraphsHead = 0;
+	
+	public int add(String text, int w, int h, float stretch, float shrink){
+		if(size == width.length)
+			grow(size*2);
+		width[size] = w;
+		height[size] = h;
+		stretchability[size] = stretch;
+		shrinkability[size] = shrink;
+		scale[size] = 1;
+		textId[size] = intern(text);
+		return size++;
+	}
+	public void endParagraph(){
+		if(size == 0 || (paragraphsHead > 0 && paragraphEnd[paragraphsHead-1] == size))
+			return;
+		if(paragraphsHead == paragraphEnd.length)
+			paragraphEnd = Arrays.copyOf(paragraphEnd, paragraphsHead*2);
+		paragraphEnd[paragraphsHead++] = size;
+	}
+	public int size(){
+		return size;
+	}
+	public int paragraphs(){
+		return paragraphsHead + (size > paragraphStart(paragraphsHead) ? 1 : 0);
+	}
+	public int paragraphStart(int p){
+		return p == 0 ? 0 : paragraphEnd[p-1];
+	}
+	public int paragraphEnd(int p){
+		return p < paragraphsHead ? paragraphEnd[p] : size;
+	}
+	public String getText(int i){
+		return texts[textId[i]];
+	}
+	public int getWidth(int i){
+		return width[i];
+	}
+	public int getHeight(int i){
+		return height[i];
+	}
+	public float getScale(int i){
+		return scale[i];
+	}
+	public boolean grow(int i, float newScale){
+		if(newScale<1 || newScale>stretchability[i])
+			return false;
+		scale[i] = newScale;
+		return true;
+	}
+	public boolean shrink(int i, float newScale){
+		if(newScale>1 || newScale<shrinkability[i])
+			return false;
+		scale[i] = newScale;
+		return true;
+	}
+	// The raw columns, valid for indices below size(). Strategies read them
+	// directly; they are replaced when the store grows.
+	public int[] widths(){
+		return width;
+	}
+	public int[] heights(){
+		return height;
+	}
+	public float[] stretchabilities(){
+		return stretchability;
+	}
+	public float[] shrinkabilities(){
+		return shrinkability;
+	}
+	public float[] scales(){
+		return scale;
+	}
+	private int intern(String text){
+		Integer id = textIds.get(text);
+		if(id != null)
+			return id;
+		if(textsHead == texts.length)
+			texts = Arrays.copyOf(texts, textsHead*2);
+		texts[textsHead] = text;
+		textIds.put(text, textsHead);
+		return textsHead++;
+	}
+	private void grow(int capacity){
+		width = Arrays.copyOf(width, capacity);
+		height = Arrays.copyOf(height, capacity);
+		stretchability = Arrays.copyOf(stretchability, capacity);
+		shrinkability = Arrays.copyOf(shrinkability, capacity);
+		scale = Arrays.copyOf(scale, capacity);
+		textId = Arrays.copyOf(textId, capacity);
+	}
+}
@@ -1,9 +1,116 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Keeps the lines of every paragraph between calls to arrange(), so a
+// grow()/shrink() only re-arranges the paragraph that owns the component
+// and its lines are spliced into a copy of the previous layout; an array
+// returned by arrange() is never changed afterwards.
 public class Composition{
-	private static final int maxSize = 100;
-	private Component[] components=new Component[maxSize];
-	private Line[] lines = new Line[maxSize];
+	private static final int initSize = 100;
+	private Component[] components=new Component[initSize];
+	private int componentsHead = 0;
+	private int[] paragraphEnd = new int[initSize];	// exclusive end of each paragraph
+	private int paragraphsHead = 0;
+	private boolean paragraphOpen = false;
+	private Line[][] paragraphLines = new Line[initSize][];
+	private int[] lineStart = new int[initSize+1];	// index of each paragraph's first line in lines
+	private BitSet dirty = new BitSet();
+	private Line[] lines = new Line[0];
+	private Strategy lastStrategy;
 	
-	public arrange(Strategy strategy){
-		return strategy.arrang(components);
+	public void add(Component c){
+		if(componentsHead == components.length)
+			components = Arrays.copyOf(components, components.length*2);
+		components[componentsHead++] = c;
+		if(!paragraphOpen){
+			ensureParagraphs(paragraphsHead+1);
+			paragraphsHead++;
+			paragraphOpen = true;
+		}
+		paragraphEnd[paragraphsHead-1] = componentsHead;
+		dirty.set(paragraphsHead-1);
+	}
+	public void endParagraph(){
+		paragraphOpen = false;
+	}
+	public boolean grow(int index, float newScale){
+		boolean changed = components[index].grow(newScale);
+		if(changed)
+			invalidate(index);
+		return changed;
+	}
+	public boolean shrink(int index, float newScale){
+		boolean changed = components[index].shrink(newScale);
+		if(changed)
+			invalidate(index);
+		return changed;
+	}
+	// for components changed without going through grow()/shrink() here
+	public void invalidate(int index){
+		dirty.set(paragraphOf(index));
+	}
+	// re-arranges everything on the next arrange(), e.g. after the strategy's
+	// settings changed; a different strategy object is noticed by itself
+	public void invalidateAll(){
+		dirty.set(0, paragraphsHead);
+	}
+	public Line[] arrange(Strategy strategy){
+		if(strategy != lastStrategy){
+			dirty.set(0, paragraphsHead);
+			lastStrategy = strategy;
+		}
+		boolean resized = false;
+		boolean copied = false;
+		for(int p=dirty.nextSetBit(0);p>=0 && p<paragraphsHead;p=dirty.nextSetBit(p+1)){
+			int start = p == 0 ? 0 : paragraphEnd[p-1];
+			Line[] arranged = trim(strategy.arrange(Arrays.copyOfRange(components, start, paragraphEnd[p])));
+			Line[] old = paragraphLines[p];
+			if(old == null || old.length != arranged.length)
+				resized = true;
+			else if(!resized){
+				if(!copied){	// callers may still hold the previous result
+					lines = lines.clone();
+					copied = true;
+				}
+				System.arraycopy(arranged, 0, lines, lineStart[p], arranged.length);
+			}
+			paragraphLines[p] = arranged;
+		}
+		dirty.clear();
+		if(resized)
+			splice();
+		return lines;
+	}
+	public Line[] getLines(){
+		return lines;
+	}
+	private void splice(){
+		int total = 0;
+		for(int p=0;p<paragraphsHead;p++){
+			lineStart[p] = total;
+			total += paragraphLines[p].length;
+		}
+		lineStart[paragraphsHead] = total;
+		Line[] spliced = new Line[total];
+		for(int p=0;p<paragraphsHead;p++)
+			System.arraycopy(paragraphLines[p], 0, spliced, lineStart[p], paragraphLines[p].length);
+		lines = spliced;
+	}
+	private int paragraphOf(int index){
+		int p = Arrays.binarySearch(paragraphEnd, 0, paragraphsHead, index+1);
+		return p >= 0 ? p : -p-1;
+	}
+	private void ensureParagraphs(int size){
+		if(size < paragraphEnd.length)
+			return;
+		paragraphEnd = Arrays.copyOf(paragraphEnd, paragraphEnd.length*2);
+		paragraphLines = Arrays.copyOf(paragraphLines, paragraphLines.length*2);
+		lineStart = Arrays.copyOf(lineStart, lineStart.length*2+1);
+	}
+	private static Line[] trim(Line[] arranged){
+		int n = 0;
+		while(n<arranged.length && arranged[n]!=null)
+			n++;
+		return n == arranged.length ? arranged : Arrays.copyOf(arranged, n);
 	}
 }
@@ -0,0 +1,40 @@
+import java.util.Random;
+
+// Throughput of total-fit breaking against the greedy strategies,
+// all reading the same ComponentStore.
+// usage: java LayoutBench [components] [lineWidth]
+public class LayoutBench{
+	public static void main(String[] args){
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+		int lineWidth = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+		Random ran = new Random(42);
+		ComponentStore store = new ComponentStore();
+		for(int i=0;i<n;i++){
+			store.add("w" + ran.nextInt(1000), 10 + ran.nextInt(60), 12, 1.5f, 0.8f);
+			if(ran.nextInt(200) == 0)
+				store.endParagraph();
+		}
+		SimpleComposition simple = new SimpleComposition();
+		simple.setLineWidth(lineWidth);
+		simple.setSpace(5);
+		ArrayComposition array = new ArrayComposition();
+		OptimalComposition optimal = new OptimalComposition(lineWidth, 5);
+		TextComposition text = new TextComposition(null, optimal);
+		for(int round=0;round<5;round++){
+			System.out.format("round %d%n", round+1);
+			run("simple", simple, store);
+			run("array", array, store);
+			run("optimal", optimal, store);
+			run("text", text, store);
+			long t0 = System.nanoTime();
+			long shown = StreamingComposition.stream(store, optimal).limit(50).count();
+			System.out.format("  first %d lines streamed in %.3f ms%n", shown, (System.nanoTime() - t0) / 1e6);
+		}
+	}
+	private static void run(String name, Strategy strategy, ComponentStore store){
+		long t0 = System.nanoTime();
+		int lines = strategy.arrange(store, 0, store.size()).length;
+		long nanos = System.nanoTime() - t0;
+		System.out.format("  %-8s %8d lines %12.0f components/s%n", name, lines, store.size() / (nanos / 1e9));
+	}
+}
@@ -1,8 +1,41 @@
 public class Line{
 	private static final int maxSize = 100;
 	private Component[] components;
+	private int start;	// first store index, for lines of a ComponentStore
+	private int end;
 	
 	public Line(Component[] components){
 		this.components = components;
+		this.end = components.length;
+	}
+	public Line(int start, int end){
+		this.start = start;
+		this.end = end;
+	}
+	public Component[] getComponents(){
+		return components;
+	}
+	public int getStart(){
+		return start;
+	}
+	public int getEnd(){
+		return end;
+	}
+	// builds one line per exclusive end index in breaks, starting at from
+	public static Line[] split(Component[] components, int from, int[] breaks){
+		Line[] lines = new Line[breaks.length];
+		for(int i=0;i<breaks.length;i++){
+			lines[i] = new Line(java.util.Arrays.copyOfRange(components, from, breaks[i]));
+			from = breaks[i];
+		}
+		return lines;
+	}
+	public static Line[] split(int from, int[] breaks){
+		Line[] lines = new Line[breaks.length];
+		for(int i=0;i<breaks.length;i++){
+			lines[i] = new Line(from, breaks[i]);
+			from = breaks[i];
+		}
+		return lines;
 	}
 }
@@ -0,0 +1,60 @@
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+// Lays out a ComponentStore lazily: a paragraph is handed to the strategy
+// only when the consumer asks for its first line. Paragraphs are laid out
+// whole, so the lines are the same as a full layout's; the first line waits
+// for at most one paragraph.
+public class LineSpliterator implements Spliterator<Line>{
+	private ComponentStore store;
+	private Strategy strategy;
+	private int paragraph;	// current paragraph
+	private int endParagraph;	// exclusive
+	private Line[] pending = new Line[0];
+	private int pendingHead = 0;
+	
+	public LineSpliterator(ComponentStore store, Strategy strategy){
+		this(store, strategy, 0, store.paragraphs());
+	}
+	private LineSpliterator(ComponentStore store, Strategy strategy, int paragraph, int endParagraph){
+		this.store = store;
+		this.strategy = strategy;
+		this.paragraph = paragraph;
+		this.endParagraph = endParagraph;
+	}
+	public boolean tryAdvance(Consumer<? super Line> action){
+		while(pendingHead == pending.length){
+			if(!fill())
+				return false;
+		}
+		action.accept(pending[pendingHead++]);
+		return true;
+	}
+	// hands the caller the paragraphs before the middle, and any lines still pending
+	public Spliterator<Line> trySplit(){
+		int mid = (paragraph + 1 + endParagraph) / 2;
+		if(mid <= paragraph + 1 || mid >= endParagraph)
+			return null;
+		LineSpliterator prefix = new LineSpliterator(store, strategy, paragraph, mid);
+		prefix.pending = pending;
+		prefix.pendingHead = pendingHead;
+		paragraph = mid;
+		pending = new Line[0];
+		pendingHead = 0;
+		return prefix;
+	}
+	public long estimateSize(){
+		return Long.MAX_VALUE;
+	}
+	public int characteristics(){
+		return ORDERED | NONNULL | IMMUTABLE;
+	}
+	private boolean fill(){
+		if(paragraph >= endParagraph)
+			return false;
+		pending = strategy.arrange(store, store.paragraphStart(paragraph), store.paragraphEnd(paragraph));
+		pendingHead = 0;
+		paragraph++;
+		return true;
+	}
+}
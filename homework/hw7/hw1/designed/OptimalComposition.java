@@ -0,0 +1,89 @@
+// Total-fit line breaking (Knuth-Plass style) over primitive arrays.
+// A line is scored by how far its components have to grow or shrink,
+// and the breaks minimise the summed demerits of the whole paragraph.
+public class OptimalComposition implements Strategy{
+	private static final double INFINITE_BADNESS = 10000;
+	private int lineWidth;
+	private int space;
+	
+	public OptimalComposition(int lineWidth){
+		this(lineWidth, 0);
+	}
+	public OptimalComposition(int lineWidth, int space){
+		this.lineWidth = lineWidth;
+		this.space = space;
+	}
+	public Line[] arrange(Component[] components){
+		int n = 0;
+		while(n<components.length && components[n]!=null)
+			n++;
+		int[] width = new int[n];
+		float[] stretch = new float[n];
+		float[] shrink = new float[n];
+		float[] scale = new float[n];
+		for(int i=0;i<n;i++){
+			width[i] = components[i].getWidth();
+			stretch[i] = components[i].getStretchability();
+			shrink[i] = components[i].getShrinkability();
+			scale[i] = components[i].getScale();
+		}
+		return Line.split(components, 0, breakLines(width, stretch, shrink, scale, 0, n));
+	}
+	public Line[] arrange(ComponentStore store, int from, int to){
+		return Line.split(from, breakLines(store.widths(), store.stretchabilities(), store.shrinkabilities(), store.scales(), from, to));
+	}
+	// Returns the exclusive end index of every line for components [from, to).
+	// Only breaks whose shrunk width still fits are tried, so the work is
+	// O(n * components per line) instead of O(n^2).
+	public int[] breakLines(int[] width, float[] stretch, float[] shrink, float[] scale, int from, int to){
+		int n = to - from;
+		if(n <= 0)
+			return new int[0];
+		double[] natural = new double[n+1];
+		double[] grow = new double[n+1];
+		double[] shrunk = new double[n+1];
+		for(int i=0;i<n;i++){
+			int k = from + i;
+			double size = width[k] * (double)scale[k];
+			natural[i+1] = natural[i] + size;
+			grow[i+1] = grow[i] + Math.max(0, width[k] * (double)stretch[k] - size);
+			shrunk[i+1] = shrunk[i] + Math.max(0, size - width[k] * (double)shrink[k]);
+		}
+		double[] demerits = new double[n+1];
+		int[] prev = new int[n+1];
+		for(int j=1;j<=n;j++){
+			demerits[j] = Double.MAX_VALUE;
+			for(int i=j-1;i>=0;i--){
+				double size = natural[j] - natural[i] + space * (j - i - 1);
+				double minSize = size - (shrunk[j] - shrunk[i]);
+				if(minSize > lineWidth && i < j-1)
+					break;
+				double bad = badness(size, grow[j] - grow[i], shrunk[j] - shrunk[i], j == n);
+				double d = demerits[i] + (1 + bad) * (1 + bad);
+				if(d < demerits[j]){
+					demerits[j] = d;
+					prev[j] = i;
+				}
+			}
+		}
+		int count = 0;
+		for(int j=n;j>0;j=prev[j])
+			count++;
+		int[] breaks = new int[count];
+		for(int j=n;j>0;j=prev[j])
+			breaks[--count] = from + j;
+		return breaks;
+	}
+	private double badness(double size, double grow, double shrink, boolean lastLine){
+		double gap = lineWidth - size;
+		if(gap >= 0 && lastLine)
+			return 0;
+		double capacity = gap >= 0 ? grow : shrink;
+		if(capacity <= 0)
+			return gap == 0 ? 0 : INFINITE_BADNESS;
+		double ratio = Math.abs(gap) / capacity;
+		if(gap < 0 && ratio > 1)
+			return INFINITE_BADNESS;
+		return Math.min(INFINITE_BADNESS, 100 * ratio * ratio * ratio);
+	}
+}
@@ -0,0 +1,11 @@
+public class Paragraph{
+	private static int MaxLine = 150;
+	private Component[] components = new Component[MaxLine];
+	
+	public Paragraph(Component[] components){
+		this.components = components;
+	}
+	public Component[] getComponents(){
+		return components;
+	}
+}
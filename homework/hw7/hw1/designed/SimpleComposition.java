@@ -1,17 +1,54 @@
+import java.util.Arrays;
+
 public class SimpleComposition implements Strategy{
-	private static int MaxLine = 150;
+	private static int MaxWidth = 600;
+	private int lineWidth = MaxWidth;
+	private int space = 0;
+	
+	public void setLineWidth(int lineWidth){
+		this.lineWidth = lineWidth;
+	}
+	public void setSpace(int space){
+		this.space = space;
+	}
 	public Line[] arrange(Component[] components){
-		Line[] lines = new Line[MaxLine];
+		int n = 0;
+		while(n<components.length && components[n]!=null)
+			n++;
+		int[] width = new int[n];
+		float[] scale = new float[n];
+		for(int i=0;i<n;i++){
+			width[i] = components[i].getWidth();
+			scale[i] = components[i].getScale();
+		}
+		return Line.split(components, 0, breakLines(width, scale, 0, n));
+	}
+	public Line[] arrange(ComponentStore store, int from, int to){
+		return Line.split(from, breakLines(store.widths(), store.scales(), from, to));
+	}
+	private int[] breakLines(int[] width, float[] scale, int from, int to){
+		int[] breaks = new int[16];
 		int lineHead = 0;
-		for(int i=0;i<components.length;i++){
-			if(addLineBreak())
-				lineHead ++;
-			else
-				lines[lineHead].add(components[i]);
+		double used = 0;
+		for(int i=from;i<to;i++){
+			double size = width[i] * scale[i];
+			if(addLineBreak(used, size)){
+				if(lineHead == breaks.length)
+					breaks = Arrays.copyOf(breaks, lineHead*2);
+				breaks[lineHead++] = i;
+				used = 0;
+			}
+			used += used > 0 ? space + size : size;
+		}
+		if(to > from){
+			if(lineHead == breaks.length)
+				breaks = Arrays.copyOf(breaks, lineHead+1);
+			breaks[lineHead++] = to;
 		}
-		return lines;
+		return Arrays.copyOf(breaks, lineHead);
 	}
-	public boolean addLineBreak(){
-		// Method to determine
+	public boolean addLineBreak(double used, double size){
+		// first fit: break before the component that would overflow the line
+		return used > 0 && used + space + size > lineWidth;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,5 @@
+public interface Strategy{
+	Line[] arrange(Component[] components);
+	// lays out components [from, to) of store; lines refer to store indices
+	Line[] arrange(ComponentStore store, int from, int to);
+}
@@ -0,0 +1,86 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Line-on-demand layout for viewers: the first screen can be drawn as soon
+// as its paragraph is arranged, whatever the length of the document.
+public class StreamingComposition{
+	private static final Line END = new Line(0, 0);
+	
+	public static Stream<Line> stream(ComponentStore store, Strategy strategy){
+		return StreamSupport.stream(new LineSpliterator(store, strategy), false);
+	}
+	public static Iterator<Line> lines(ComponentStore store, Strategy strategy){
+		return Spliterators.iterator(new LineSpliterator(store, strategy));
+	}
+	// Lays out ahead of the reader on a daemon thread, keeping at most
+	// capacity lines buffered. A reader that stops early closes the result,
+	// which stops the thread. If the strategy throws, the reader gets an
+	// IllegalStateException caused by it after the lines laid out before.
+	public static Background background(ComponentStore store, Strategy strategy, int capacity){
+		return new Background(new LineSpliterator(store, strategy), capacity);
+	}
+	public static class Background implements Iterator<Line>, AutoCloseable{
+		private final BlockingQueue<Line> queue;
+		private final Thread producer;
+		private volatile boolean closed;
+		private volatile Throwable failure;	// set before END is queued
+		private Line next;
+		
+		private Background(final LineSpliterator lines, int capacity){
+			queue = new ArrayBlockingQueue<Line>(capacity);
+			producer = new Thread(new Runnable(){
+				public void run(){
+					try{
+						while(!Thread.currentThread().isInterrupted() && lines.tryAdvance(line -> put(queue, line)));
+					}catch(RuntimeException | Error e){
+						failure = e;
+					}finally{
+						put(queue, END);
+					}
+				}
+			}, "layout");
+			producer.setDaemon(true);
+			producer.start();
+		}
+		public boolean hasNext(){
+			if(closed)
+				return false;
+			if(next == null)
+				next = take(queue);
+			if(next == END && failure != null)
+				throw new IllegalStateException("layout failed", failure);
+			return next != END;
+		}
+		public Line next(){
+			if(!hasNext())
+				throw new NoSuchElementException();
+			Line line = next;
+			next = null;
+			return line;
+		}
+		public void close(){
+			closed = true;
+			producer.interrupt();
+		}
+	}
+	private static void put(BlockingQueue<Line> queue, Line line){
+		try{
+			queue.put(line);
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+	private static Line take(BlockingQueue<Line> queue){
+		try{
+			return queue.take();
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			return END;
+		}
+	}
+}
@@ -1,25 +1,125 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 public class TextComposition implements Strategy{
-	private static int MaxLine = 150;
-	private Paragraph[] paragraphs = new Paragraph[maxLine];	// Where can I get it?
+	private Paragraph[] paragraphs;
+	private Strategy lineBreaker;	// null: one line per paragraph
+	private boolean parallel = false;
+	private int parallelThreshold = 20000;	// components; smaller documents stay sequential
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
 	
+	public TextComposition(Paragraph[] paragraphs){
+		this(paragraphs, null);
+	}
+	// lineBreaker is shared by every worker, so it must not keep per-call state
+	public TextComposition(Paragraph[] paragraphs, Strategy lineBreaker){
+		this.paragraphs = paragraphs;
+		this.lineBreaker = lineBreaker;
+	}
+	public void setParallel(boolean parallel){
+		this.parallel = parallel;
+	}
+	public void setPool(ForkJoinPool pool){
+		this.pool = pool;
+	}
+	public void setParallelThreshold(int components){
+		parallelThreshold = components;
+	}
+	// components are one paragraph
 	public Line[] arrange(Component[] components){
-		Line[] lines = new Line[MaxLine];
+		return arrangeParagraph(components);
+	}
+	// the paragraphs given to the constructor
+	public Line[] arrange(){
+		if(paragraphs == null)
+			throw new IllegalStateException("no paragraphs to arrange");
+		int n = paragraphs.length;
+		int[] size = new int[n+1];	// prefix component counts, used to split the work evenly
+		for(int i=0;i<n;i++)
+			size[i+1] = size[i] + paragraphs[i].getComponents().length;
+		return arrange(null, size, n);
+	}
+	public Line[] arrange(ComponentStore store, int from, int to){
+		int[] bounds = new int[store.paragraphs()+1];
+		int n = 0;
+		bounds[0] = from;
+		for(int p=0;p<store.paragraphs() && bounds[n]<to;p++){
+			int end = Math.min(to, store.paragraphEnd(p));
+			if(end > bounds[n])
+				bounds[++n] = end;
+		}
+		return arrange(store, bounds, n);
+	}
+	// size holds the component offset of each paragraph, so paragraph i spans [size[i], size[i+1])
+	private Line[] arrange(ComponentStore store, int[] size, int n){
+		Line[][] arranged = new Line[n][];
+		int components = size[n] - size[0];
+		if(parallel && components >= parallelThreshold)
+			pool.invoke(new ArrangeTask(arranged, store, size, 0, n, Math.max(parallelThreshold/8, components/(pool.getParallelism()*8))));
+		else
+			arrangeRange(arranged, store, size, 0, n);
+		int total = 0;
+		for(int i=0;i<n;i++)
+			total += arranged[i].length;
+		Line[] lines = new Line[total];
 		int lineHead = 0;
-		for(int i=0;i<paragraphs.length;i++){
-			for(int j=0;j<paragraphs[i].getComponents().length;j++){
-				lines[lineHead].add(components[j]);
-			}
-			lineHead++;
+		for(int i=0;i<n;i++){
+			System.arraycopy(arranged[i], 0, lines, lineHead, arranged[i].length);
+			lineHead += arranged[i].length;
 		}
 		return lines;
 	}
-}
-
-public class Paragraph{
-	private static int MaxLine = 150;
-	private Component[] components = new Component[MaxLine];
+	private void arrangeRange(Line[][] arranged, ComponentStore store, int[] size, int from, int to){
+		for(int i=from;i<to;i++){
+			if(store == null)
+				arranged[i] = arrangeParagraph(paragraphs[i].getComponents());
+			else if(lineBreaker == null)
+				arranged[i] = new Line[]{ new Line(size[i], size[i+1]) };
+			else
+				arranged[i] = lineBreaker.arrange(store, size[i], size[i+1]);
+		}
+	}
+	private Line[] arrangeParagraph(Component[] components){
+		int n = 0;
+		while(n<components.length && components[n]!=null)
+			n++;
+		if(lineBreaker == null)
+			return new Line[]{ new Line(Arrays.copyOf(components, n)) };
+		Line[] lines = lineBreaker.arrange(components);
+		n = 0;
+		while(n<lines.length && lines[n]!=null)
+			n++;
+		return n == lines.length ? lines : Arrays.copyOf(lines, n);
+	}
 	
-	public Component[] getComponents(){
-		return components;
+	private class ArrangeTask extends RecursiveAction{
+		private static final long serialVersionUID = 1L;
+		private Line[][] arranged;
+		private ComponentStore store;
+		private int[] size;
+		private int from, to, grain;
+		
+		ArrangeTask(Line[][] arranged, ComponentStore store, int[] size, int from, int to, int grain){
+			this.arranged = arranged;
+			this.store = store;
+			this.size = size;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+		protected void compute(){
+			if(to-from <= 1 || size[to]-size[from] <= grain){
+				arrangeRange(arranged, store, size, from, to);
+				return;
+			}
+			// split where half of the components fall, not half of the paragraphs
+			int half = (size[from] + size[to]) / 2;
+			int mid = Arrays.binarySearch(size, from, to+1, half);
+			mid = mid >= 0 ? mid : -mid-1;
+			mid = Math.max(from+1, Math.min(to-1, mid));
+			invokeAll(new ArrangeTask(arranged, store, size, from, mid, grain),
+					new ArrangeTask(arranged, store, size, mid, to, grain));
+		}
 	}
-}
\ No newline at end of file
+}
@@ -1,12 +1,39 @@
+import java.util.Arrays;
 
-public class BarChart {
+public class BarChart implements DataView {
 	private spreadsheetData mData;
+	private SheetReader mSheet;	// shared with the data, never copied
+	private int mWidth=800;		// bars that fit on screen
+	private LttbSeries mSeries;	// column 0, downsampled to mWidth bars
 	
 	public void show(spreadsheetData newData){
 		mData=newData;
-		System.out.format("bar\n%s\n",mData.mData.toString());
-		System.out.format("table\n%f\n",mData.mData[0][0]);
-		//show newData on screen
+		mSheet=newData.getReader();
+		mSeries=new LttbSeries(mSheet,0,mWidth);
+		draw(mSeries.points());
+	}
+	public void update(spreadsheetData data,CellRange[] changed){
+		mData=data;
+		if(mSheet!=data.getReader()){
+			show(data);
+			return;
+		}
+		for(int k=0;k<changed.length;k++)
+			if(changed[k].col0==0)
+				for(int i=changed[k].row0;i<changed[k].row1;i++)
+					mSeries.update(i);
+		System.out.format("bar %s\n",Arrays.toString(changed));
+		draw(mSeries.points());
+	}
+	public void setWidth(int width){
+		mWidth=width;
+		if(mSheet!=null)
+			mSeries=new LttbSeries(mSheet,0,width);
+	}
+	private void draw(int[] rows){
+		//show one bar per selected row
+		for(int i=0;i<rows.length;i++)
+			System.out.format("bar[%d]\n%f\n",rows[i],mSheet.get(rows[i],0));
 	}
 	public void onUpdate(){
 		//modified mData
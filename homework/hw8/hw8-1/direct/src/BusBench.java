@@ -0,0 +1,55 @@
+import java.util.Random;
+
+// Edit throughput through an UpdateBus as views are added: one thread sets
+// random cells of column 0 while column 1 holds a formula of each, and
+// every view counts the cells it is sent. Reports writes per second on the
+// writer's side and how long close() takes to deliver the rest.
+// usage: java BusBench [writes] [rows] [maxViews]
+public class BusBench {
+	private static class CountingView implements DataView {
+		long cells,deltas;
+		public void show(spreadsheetData newData){
+		}
+		public void update(spreadsheetData data,CellRange[] changed){
+			deltas++;
+			for(int k=0;k<changed.length;k++)
+				cells+=(long)(changed[k].row1-changed[k].row0)*(changed[k].col1-changed[k].col0);
+		}
+	}
+	public static void main(String[] args){
+		int writes=args.length>0 ? Integer.parseInt(args[0]) : 500000;
+		int rows=args.length>1 ? Integer.parseInt(args[1]) : 10000;
+		int maxViews=args.length>2 ? Integer.parseInt(args[2]) : 32;
+		for(int round=0;round<2;round++)
+			for(int views=1;views<=maxViews;views*=2)
+				run(round,views,writes,rows);
+	}
+	private static void run(int round,int views,int writes,int rows){
+		spreadsheetData sheet=new spreadsheetData();
+		sheet.setData(new double[rows][2]);
+		for(int i=0;i<rows;i++)
+			sheet.setFormula(i,1,new Formula(){
+				public double eval(double[] in){
+					return in[0]*2;
+				}
+			},new int[]{i,0});
+		CountingView[] counting=new CountingView[views];
+		for(int v=0;v<views;v++){
+			counting[v]=new CountingView();
+			sheet.addView(counting[v]);
+		}
+		UpdateBus bus=new UpdateBus(sheet,5);
+		Random ran=new Random(1);
+		long t0=System.nanoTime();
+		for(int k=0;k<writes;k++)
+			sheet.setCell(ran.nextInt(rows),0,k+1);
+		long t1=System.nanoTime();
+		bus.close();
+		long t2=System.nanoTime();
+		long deltas=0;
+		for(int v=0;v<views;v++)
+			deltas+=counting[v].deltas;
+		System.out.format("round %d, %2d views: %8.0f writes/s, close %.1f ms, %d frames, %d deltas, %d cells per view%n",
+				round+1,views,writes/((t1-t0)/1e9),(t2-t1)/1e6,bus.getFrames(),deltas,counting[0].cells);
+	}
+}
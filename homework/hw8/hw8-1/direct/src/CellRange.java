@@ -0,0 +1,31 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Rectangle of cells, rows [row0, row1) and columns [col0, col1).
+public class CellRange {
+	public final int row0, col0, row1, col1;
+	public CellRange(int row0,int col0,int row1,int col1){
+		this.row0=row0;
+		this.col0=col0;
+		this.row1=row1;
+		this.col1=col1;
+	}
+	// one range per run of consecutive cells within a row; cell = row*cols+col
+	public static CellRange[] of(BitSet cells,int cols){
+		CellRange[] out=new CellRange[8];
+		int n=0;
+		for(int c=cells.nextSetBit(0);c>=0;){
+			int row=c/cols;
+			int end=cells.nextClearBit(c);
+			end=Math.min(end,(row+1)*cols);
+			if(n==out.length)
+				out=Arrays.copyOf(out,n*2);
+			out[n++]=new CellRange(row,c%cols,row+1,end-row*cols);
+			c=cells.nextSetBit(end);
+		}
+		return Arrays.copyOf(out,n);
+	}
+	public String toString(){
+		return String.format("[%d,%d]-[%d,%d]",row0,col0,row1-1,col1-1);
+	}
+}
@@ -0,0 +1,116 @@
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+// Sum, mean, variance and min/max of one ColumnStore column, computed with
+// the Vector API kernel when it is available and scalar loops otherwise.
+public class ColumnStats {
+	private static final StatsKernel KERNEL=loadKernel();
+	private static final ForkJoinPool POOL=new ForkJoinPool();
+	public final int count;
+	public final double sum,mean,variance,min,max;
+	
+	private ColumnStats(int count,double sum,double variance,double min,double max){
+		this.count=count;
+		this.sum=sum;
+		this.mean=count==0 ? 0 : sum/count;
+		this.variance=variance;
+		this.min=min;
+		this.max=max;
+	}
+	public static ColumnStats of(ColumnStore store,int col){
+		return of(store,col,KERNEL);
+	}
+	public static ColumnStats of(ColumnStore store,int col,StatsKernel kernel){
+		ByteBuffer b=store.columnBytes(col);
+		int n=store.rows();
+		double sum=kernel.sum(b,n);
+		double mean=n==0 ? 0 : sum/n;
+		double variance=n==0 ? 0 : kernel.squaredDeviation(b,n,mean)/n;
+		return new ColumnStats(n,sum,variance,kernel.min(b,n),kernel.max(b,n));
+	}
+	// every column, columns spread over a fork-join pool
+	public static ColumnStats[] all(ColumnStore store){
+		ColumnStats[] out=new ColumnStats[store.cols()];
+		POOL.invoke(new AllTask(store,out,0,out.length));
+		return out;
+	}
+	private static class AllTask extends RecursiveAction {
+		private static final long serialVersionUID=1L;
+		private final ColumnStore store;
+		private final ColumnStats[] out;
+		private final int from,to;
+		
+		AllTask(ColumnStore store,ColumnStats[] out,int from,int to){
+			this.store=store;
+			this.out=out;
+			this.from=from;
+			this.to=to;
+		}
+		protected void compute(){
+			if(to-from==1){
+				out[from]=of(store,from);
+				return;
+			}
+			if(to-from>1){
+				int mid=(from+to)>>>1;
+				invokeAll(new AllTask(store,out,from,mid),new AllTask(store,out,mid,to));
+			}
+		}
+	}
+	// bins equal-width buckets over [lo, hi); values outside are clamped, and
+	// if hi<=lo every value lands in bucket 0. Row ranges are counted in
+	// parallel and their histograms added.
+	public static long[] histogram(ColumnStore store,int col,int bins,double lo,double hi){
+		double scale=hi>lo ? bins/(hi-lo) : 0;
+		return POOL.invoke(new HistogramTask(store.columnBytes(col),0,store.rows(),bins,lo,scale));
+	}
+	private static class HistogramTask extends RecursiveTask<long[]> {
+		private static final long serialVersionUID=1L;
+		private static final int LEAF=1<<16;	// rows
+		private final ByteBuffer b;
+		private final int from,to,bins;
+		private final double lo,scale;
+		
+		HistogramTask(ByteBuffer b,int from,int to,int bins,double lo,double scale){
+			this.b=b;
+			this.from=from;
+			this.to=to;
+			this.bins=bins;
+			this.lo=lo;
+			this.scale=scale;
+		}
+		protected long[] compute(){
+			if(to-from<=LEAF){
+				long[] h=new long[bins];
+				for(int i=from;i<to;i++){
+					int k=(int)((b.getDouble(i<<3)-lo)*scale);
+					h[Math.max(0,Math.min(bins-1,k))]++;
+				}
+				return h;
+			}
+			int mid=(from+to)>>>1;
+			HistogramTask left=new HistogramTask(b,from,mid,bins,lo,scale);
+			left.fork();
+			long[] h=new HistogramTask(b,mid,to,bins,lo,scale).compute();
+			long[] l=left.join();
+			for(int k=0;k<bins;k++)
+				h[k]+=l[k];
+			return h;
+		}
+	}
+	public static StatsKernel kernel(){
+		return KERNEL;
+	}
+	private static StatsKernel loadKernel(){
+		try{
+			return (StatsKernel)Class.forName("VectorKernel").getDeclaredConstructor().newInstance();
+		}catch(ReflectiveOperationException | LinkageError e){
+			return new ScalarKernel();
+		}
+	}
+	public String toString(){
+		return String.format("n=%d sum=%f mean=%f var=%f min=%f max=%f",count,sum,mean,variance,min,max);
+	}
+}
@@ -0,0 +1,87 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Column-major sheet values outside the Java heap, either in direct memory
+// or in a memory-mapped file. Each column is one contiguous buffer, so a
+// million-row sheet is a handful of objects rather than a million row
+// arrays, and views read the same pages the writer fills.
+public class ColumnStore implements SheetReader {
+	private int mRows,mCols;
+	private DoubleBuffer[] mColumns;
+	private ByteBuffer[] mBytes;
+	private MappedByteBuffer[] mMapped;
+	private RandomAccessFile mFile;
+	
+	private ColumnStore(int rows,int cols){
+		mRows=rows;
+		mCols=cols;
+		mColumns=new DoubleBuffer[cols];
+		mBytes=new ByteBuffer[cols];
+	}
+	public static ColumnStore offHeap(int rows,int cols){
+		ColumnStore s=new ColumnStore(rows,cols);
+		for(int j=0;j<cols;j++){
+			s.mBytes[j]=ByteBuffer.allocateDirect(rows*8).order(ByteOrder.nativeOrder());
+			s.mColumns[j]=s.mBytes[j].asDoubleBuffer();
+		}
+		return s;
+	}
+	// maps path (created or resized as needed) as rows x cols doubles;
+	// existing contents are kept, so a saved sheet reopens without reading it
+	public static ColumnStore map(String path,int rows,int cols) throws IOException{
+		ColumnStore s=new ColumnStore(rows,cols);
+		s.mFile=new RandomAccessFile(path,"rw");
+		long columnBytes=(long)rows*8;
+		s.mFile.setLength(columnBytes*cols);
+		FileChannel channel=s.mFile.getChannel();
+		s.mMapped=new MappedByteBuffer[cols];
+		for(int j=0;j<cols;j++){
+			s.mMapped[j]=channel.map(FileChannel.MapMode.READ_WRITE,j*columnBytes,columnBytes);
+			s.mBytes[j]=s.mMapped[j].order(ByteOrder.nativeOrder());
+			s.mColumns[j]=s.mBytes[j].asDoubleBuffer();
+		}
+		return s;
+	}
+	public static ColumnStore offHeap(double[][] data){
+		ColumnStore s=offHeap(data.length,data.length==0 ? 0 : data[0].length);
+		for(int i=0;i<s.mRows;i++)
+			for(int j=0;j<s.mCols;j++)
+				s.set(i,j,data[i][j]);
+		return s;
+	}
+	public int rows(){
+		return mRows;
+	}
+	public int cols(){
+		return mCols;
+	}
+	public double get(int row,int col){
+		return mColumns[col].get(row);
+	}
+	public void set(int row,int col,double value){
+		mColumns[col].put(row,value);
+	}
+	public DoubleBuffer column(int col){
+		return mColumns[col].asReadOnlyBuffer();
+	}
+	// the column as raw native-order doubles, read-only, for bulk kernels
+	public ByteBuffer columnBytes(int col){
+		return mBytes[col].asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+	}
+	// writes mapped pages back to the file
+	public void force(){
+		if(mMapped!=null)
+			for(int j=0;j<mMapped.length;j++)
+				mMapped[j].force();
+	}
+	public void close() throws IOException{
+		force();
+		if(mFile!=null)
+			mFile.close();
+	}
+}
@@ -0,0 +1,7 @@
+
+public interface DataView {
+	// the whole sheet changed
+	public void show(spreadsheetData newData);
+	// only the cells in changed were modified or recomputed
+	public void update(spreadsheetData data,CellRange[] changed);
+}
@@ -0,0 +1,5 @@
+
+public interface Formula {
+	// inputs holds the current values of the formula's input cells, in order
+	public double eval(double[] inputs);
+}
@@ -0,0 +1,102 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Largest-triangle-three-buckets downsampling of one sheet column to at
+// most `points` rows. Selections are cached per bucket; after an edit only
+// the buckets around the changed rows are recomputed, so a refresh costs
+// the size of those buckets, not the size of the column.
+public class LttbSeries {
+	private SheetReader mSheet;
+	private int mCol;
+	private int mBuckets;		// inner buckets; the first and last row are always kept
+	private double mBucketSize;
+	private int[] mSelected;	// chosen row for each of the mBuckets+2 slots
+	private double[] mAverage;	// mean value of each slot
+	private BitSet mDirty=new BitSet();
+	
+	public LttbSeries(SheetReader sheet,int col,int points){
+		mSheet=sheet;
+		mCol=col;
+		int rows=sheet.rows();
+		mBuckets=Math.max(0,Math.min(points,rows)-2);
+		mBucketSize=mBuckets==0 ? 0 : (double)(rows-2)/mBuckets;
+		mSelected=new int[mBuckets+2];
+		mAverage=new double[mBuckets+2];
+		mDirty.set(0,mBuckets+2);
+	}
+	// the value at row changed
+	public void update(int row){
+		mDirty.set(slotOf(row));
+	}
+	// rows to draw, in order
+	public int[] points(){
+		int n=mSheet.rows();
+		if(n<=2 || mBuckets==0){
+			int[] all=new int[n];
+			for(int i=0;i<n;i++)
+				all[i]=i;
+			return all;
+		}
+		int last=mBuckets+1;
+		for(int s=mDirty.nextSetBit(0);s>=0;s=mDirty.nextSetBit(s+1))
+			mAverage[s]=s==0 ? mSheet.get(0,mCol) : s==last ? mSheet.get(n-1,mCol) : average(s);
+		mSelected[0]=0;
+		mSelected[last]=n-1;
+		// a slot's choice depends on the previous choice and the next average
+		BitSet redo=new BitSet();
+		for(int s=mDirty.nextSetBit(0);s>=0;s=mDirty.nextSetBit(s+1)){
+			if(s>1)
+				redo.set(s-1);
+			if(s>=1 && s<last)
+				redo.set(s);
+			if(s==0)	// slot 1 measures its triangles from row 0's value
+				redo.set(1);
+		}
+		for(int s=redo.nextSetBit(1);s>=1 && s<last;s=redo.nextSetBit(s+1)){
+			int old=mSelected[s];
+			select(s);
+			if(mSelected[s]!=old && s+1<last)
+				redo.set(s+1);
+		}
+		mDirty.clear();
+		return Arrays.copyOf(mSelected,mSelected.length);
+	}
+	private void select(int s){
+		int a=mSelected[s-1];
+		double ax=a,ay=mSheet.get(a,mCol);
+		double cx=s+1==mBuckets+1 ? mSheet.rows()-1 : (start(s+1)+end(s+1)-1)/2.0;
+		double cy=mAverage[s+1];
+		double best=-1;
+		for(int i=start(s);i<end(s);i++){
+			double area=Math.abs((ax-cx)*(mSheet.get(i,mCol)-ay)-(ax-i)*(cy-ay));
+			if(area>best){
+				best=area;
+				mSelected[s]=i;
+			}
+		}
+	}
+	private double average(int s){
+		double sum=0;
+		for(int i=start(s);i<end(s);i++)
+			sum+=mSheet.get(i,mCol);
+		return sum/(end(s)-start(s));
+	}
+	private int start(int s){
+		return 1+(int)((s-1)*mBucketSize);
+	}
+	private int end(int s){
+		return 1+(int)(s*mBucketSize);
+	}
+	private int slotOf(int row){
+		if(row==0)
+			return 0;
+		if(row>=mSheet.rows()-1 || mBuckets==0)
+			return mBuckets+1;
+		int s=Math.min(mBuckets,1+(int)((row-1)/mBucketSize));
+		while(s<mBuckets && row>=end(s))
+			s++;
+		while(s>1 && row<start(s))
+			s--;
+		return s;
+	}
+}
@@ -1,12 +1,25 @@
+import java.util.Arrays;
 
-public class PieChart {
+public class PieChart implements DataView {
 	private spreadsheetData mData;
+	private SheetReader mSheet;	// shared with the data, never copied
 	
 	public void show(spreadsheetData newData){
 		mData=newData;
-		System.out.format("pie\n%s\n",mData.mData.toString());
-		System.out.format("table\n%f\n",mData.mData[0][0]);
-		//show newData on screen
+		mSheet=newData.getReader();
+		//one slice per column, from the running aggregates
+		SheetAggregates agg=newData.getAggregates();
+		for(int j=0;j<mSheet.cols();j++)
+			System.out.format("pie[%d]\n%f\n",j,agg.colShare(j));
+	}
+	public void update(spreadsheetData data,CellRange[] changed){
+		mData=data;
+		mSheet=data.getReader();
+		//every share moves with the total, the changed columns' sums too
+		SheetAggregates agg=data.getAggregates();
+		System.out.format("pie %s\n",Arrays.toString(changed));
+		for(int j=0;j<mSheet.cols();j++)
+			System.out.format("pie[%d]\n%f\n",j,agg.colShare(j));
 	}
 	public void onUpdate(){
 		//modified mData
@@ -0,0 +1,30 @@
+import java.nio.ByteBuffer;
+
+public class ScalarKernel implements StatsKernel {
+	public double sum(ByteBuffer b,int n){
+		double s=0;
+		for(int i=0;i<n;i++)
+			s+=b.getDouble(i<<3);
+		return s;
+	}
+	public double squaredDeviation(ByteBuffer b,int n,double mean){
+		double s=0;
+		for(int i=0;i<n;i++){
+			double d=b.getDouble(i<<3)-mean;
+			s+=d*d;
+		}
+		return s;
+	}
+	public double min(ByteBuffer b,int n){
+		double m=Double.POSITIVE_INFINITY;
+		for(int i=0;i<n;i++)
+			m=Math.min(m,b.getDouble(i<<3));
+		return m;
+	}
+	public double max(ByteBuffer b,int n){
+		double m=Double.NEGATIVE_INFINITY;
+		for(int i=0;i<n;i++)
+			m=Math.max(m,b.getDouble(i<<3));
+		return m;
+	}
+}
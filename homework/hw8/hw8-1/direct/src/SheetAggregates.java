@@ -0,0 +1,42 @@
+
+// Row sums, column sums and the total of a sheet, kept current from each
+// cell change in O(1) so charts never re-aggregate the whole sheet.
+public class SheetAggregates {
+	private double[] mRowSum;
+	private double[] mColSum;
+	private double mTotal;
+	
+	public SheetAggregates(SheetReader sheet){
+		mRowSum=new double[sheet.rows()];
+		mColSum=new double[sheet.cols()];
+		for(int j=0;j<sheet.cols();j++){
+			for(int i=0;i<sheet.rows();i++){
+				double v=sheet.get(i,j);
+				mRowSum[i]+=v;
+				mColSum[j]+=v;
+			}
+			mTotal+=mColSum[j];
+		}
+	}
+	public void apply(int row,int col,double oldValue,double newValue){
+		double d=newValue-oldValue;
+		mRowSum[row]+=d;
+		mColSum[col]+=d;
+		mTotal+=d;
+	}
+	public double rowSum(int row){
+		return mRowSum[row];
+	}
+	public double colSum(int col){
+		return mColSum[col];
+	}
+	public double total(){
+		return mTotal;
+	}
+	public double rowShare(int row){
+		return mTotal==0 ? 0 : mRowSum[row]/mTotal;
+	}
+	public double colShare(int col){
+		return mTotal==0 ? 0 : mColSum[col]/mTotal;
+	}
+}
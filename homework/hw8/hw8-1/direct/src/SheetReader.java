@@ -0,0 +1,10 @@
+import java.nio.DoubleBuffer;
+
+// Read-only access to sheet values for the views.
+public interface SheetReader {
+	public int rows();
+	public int cols();
+	public double get(int row,int col);
+	// the column's values in place, read-only; positions are rows
+	public DoubleBuffer column(int col);
+}
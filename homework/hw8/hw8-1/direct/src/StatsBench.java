@@ -0,0 +1,51 @@
+import java.util.Random;
+
+// Column statistics over a rows x cols sheet: naive loops over a heap
+// double[][] (as spreadsheetData used to hold it) against ColumnStats with
+// the scalar kernel, the loaded kernel, and all columns in parallel.
+// usage: java StatsBench [rows] [cols]
+public class StatsBench {
+	public static void main(String[] args){
+		int rows=args.length>0 ? Integer.parseInt(args[0]) : 2000000;
+		int cols=args.length>1 ? Integer.parseInt(args[1]) : 8;
+		Random ran=new Random(1);
+		double[][] data=new double[rows][cols];
+		for(int i=0;i<rows;i++)
+			for(int j=0;j<cols;j++)
+				data[i][j]=ran.nextGaussian()*10+j;
+		ColumnStore store=ColumnStore.offHeap(data);
+		StatsKernel scalar=new ScalarKernel();
+		System.out.format("kernel: %s%n",ColumnStats.kernel().getClass().getName());
+		double sink=0;
+		for(int round=0;round<5;round++){
+			long t0=System.nanoTime();
+			for(int j=0;j<cols;j++)
+				sink+=naive(data,j);
+			long t1=System.nanoTime();
+			for(int j=0;j<cols;j++)
+				sink+=ColumnStats.of(store,j,scalar).variance;
+			long t2=System.nanoTime();
+			for(int j=0;j<cols;j++)
+				sink+=ColumnStats.of(store,j).variance;
+			long t3=System.nanoTime();
+			ColumnStats[] all=ColumnStats.all(store);
+			sink+=all[0].variance;
+			long t4=System.nanoTime();
+			System.out.format("round %d: naive %.1f ms, scalar %.1f ms, kernel %.1f ms, parallel %.1f ms%n",
+					round+1,(t1-t0)/1e6,(t2-t1)/1e6,(t3-t2)/1e6,(t4-t3)/1e6);
+		}
+		System.out.println(ColumnStats.of(store,0)+" "+(sink!=0));
+	}
+	private static double naive(double[][] data,int col){
+		double sum=0,min=Double.POSITIVE_INFINITY,max=Double.NEGATIVE_INFINITY;
+		for(int i=0;i<data.length;i++){
+			sum+=data[i][col];
+			min=Math.min(min,data[i][col]);
+			max=Math.max(max,data[i][col]);
+		}
+		double mean=sum/data.length,sq=0;
+		for(int i=0;i<data.length;i++)
+			sq+=(data[i][col]-mean)*(data[i][col]-mean);
+		return sq/data.length+min+max;
+	}
+}
@@ -0,0 +1,10 @@
+import java.nio.ByteBuffer;
+
+// Reductions over n native-order doubles starting at offset 0 of b.
+public interface StatsKernel {
+	public double sum(ByteBuffer b,int n);
+	// sum of (x-mean)^2
+	public double squaredDeviation(ByteBuffer b,int n,double mean);
+	public double min(ByteBuffer b,int n);
+	public double max(ByteBuffer b,int n);
+}
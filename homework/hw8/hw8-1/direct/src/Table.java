@@ -1,15 +1,25 @@
 
-public class Table {
+public class Table implements DataView {
 	private spreadsheetData mData;
+	private SheetReader mSheet;	// shared with the data, never copied
 	public void show(spreadsheetData newData){
 		mData=newData;
+		mSheet=newData.getReader();
 		//show newData on screen
-		System.out.format("table\n%f\n",mData.mData[0][0]);
+		System.out.format("table\n%f\n",mSheet.get(0,0));
+	}
+	public void update(spreadsheetData data,CellRange[] changed){
+		mData=data;
+		mSheet=data.getReader();
+		//redraw only the changed cells
+		for(int k=0;k<changed.length;k++)
+			for(int i=changed[k].row0;i<changed[k].row1;i++)
+				for(int j=changed[k].col0;j<changed[k].col1;j++)
+					System.out.format("table[%d][%d]\n%f\n",i,j,mSheet.get(i,j));
 	}
 	public void onUpdate(){
 		//modified mData
-		mData.mData[0][0]=5;
-		mData.onUpdate();
+		mData.setCell(0,0,5);
 	}
 	
 }
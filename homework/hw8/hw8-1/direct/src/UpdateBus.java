@@ -0,0 +1,223 @@
+import java.util.BitSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+// Collects the cells changed in a time window and delivers them to every
+// view as one delta, on the bus's own thread instead of the writer's.
+// A view writing back to the sheet while handling a delta is re-entrant:
+// that write is delivered in the next frame to every view, except that the
+// writer is not sent back the cells it set itself (formula cells recomputed
+// from them still reach it). Every pending cell keeps the depth of the chain
+// that wrote it (0 for outside writes), views get one delta per depth, and a
+// write made while handling depth maxDepth is dropped, so view-to-view
+// cycles end even while new edits keep arriving. The views are looked up
+// again at every flush, so a view added to the sheet later is updated too.
+public class UpdateBus {
+	private static int maxDepth=8;
+	private spreadsheetData mData;
+	private DataView[] mViews=new DataView[0];	// as of the last flush
+	private BitSet mPending=new BitSet();
+	private BitSet[] mReentrant=new BitSet[maxDepth+1];	// [depth] cells changed by re-entrant writes
+	private BitSet[][] mOwn=new BitSet[0][];	// [view][depth] cells each view set while being updated
+	private BitSet mFrame=new BitSet();	// swapped with mPending at every flush
+	private BitSet[] mFrameReentrant=new BitSet[maxDepth+1];
+	private BitSet[][] mFrameOwn=new BitSet[0][];
+	private BitSet mDelta=new BitSet();
+	private BitSet mHidden=new BitSet();
+	private boolean mAllPending;
+	private int mCurrentDepth;	// depth of the delta being delivered, only touched by the dispatcher
+	private long mFrames,mDeltas,mSuppressed;
+	private volatile Thread mDispatcher;
+	private DataView mCurrent;	// view being updated, only touched by the dispatcher
+	private ScheduledExecutorService mTimer;
+	
+	public UpdateBus(spreadsheetData data,long windowMillis){
+		mData=data;
+		for(int d=1;d<=maxDepth;d++){
+			mReentrant[d]=new BitSet();
+			mFrameReentrant[d]=new BitSet();
+		}
+		mTimer=Executors.newSingleThreadScheduledExecutor(new ThreadFactory(){
+			public Thread newThread(Runnable r){
+				Thread t=new Thread(r,"update-bus");
+				t.setDaemon(true);
+				mDispatcher=t;
+				return t;
+			}
+		});
+		mTimer.scheduleWithFixedDelay(new Runnable(){
+			public void run(){
+				try{
+					flush();
+				}catch(RuntimeException e){
+					e.printStackTrace();	// keep delivering later frames
+				}
+			}
+		},windowMillis,windowMillis,TimeUnit.MILLISECONDS);
+		data.setBus(this);
+	}
+	// changed holds every cell whose value changed, written the cells the
+	// writer set itself (the rest were recomputed from them)
+	public void publish(CellRange[] changed,CellRange[] written){
+		int cols=mData.cols();
+		boolean reentrant=Thread.currentThread()==mDispatcher;
+		int depth=reentrant ? mCurrentDepth+1 : 0;
+		synchronized(this){
+			if(depth>maxDepth){
+				for(int k=0;k<changed.length;k++)
+					mSuppressed+=(long)(changed[k].row1-changed[k].row0)*(changed[k].col1-changed[k].col0);
+				return;
+			}
+			if(!reentrant){
+				set(mPending,changed,cols);
+				return;
+			}
+			set(mReentrant[depth],changed,cols);
+			set(mOwn[indexOf(mCurrent)][depth],written,cols);
+		}
+	}
+	private static void set(BitSet target,CellRange[] ranges,int cols){
+		for(int k=0;k<ranges.length;k++)
+			for(int i=ranges[k].row0;i<ranges[k].row1;i++)
+				target.set(i*cols+ranges[k].col0,i*cols+ranges[k].col1);
+	}
+	public synchronized void publishAll(){
+		mAllPending=true;
+	}
+	// Delivers what is still pending, including the chains it starts, and
+	// hands the views back to direct updates from the writers.
+	public void close(){
+		mTimer.execute(new Runnable(){
+			public void run(){
+				try{
+					for(int i=0;i<=maxDepth && flush();i++);
+					mData.setBus(null);
+					flush();	// writes published before the bus was removed
+				}catch(RuntimeException e){
+					e.printStackTrace();
+				}
+			}
+		});
+		mTimer.shutdown();
+		try{
+			mTimer.awaitTermination(1,TimeUnit.SECONDS);
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+	public synchronized long getFrames(){
+		return mFrames;
+	}
+	public synchronized long getDeltas(){
+		return mDeltas;
+	}
+	public synchronized long getSuppressed(){
+		return mSuppressed;
+	}
+	// returns false if there was nothing to deliver
+	private boolean flush(){
+		boolean all;
+		boolean any;
+		DataView[] views=mData.getViews();
+		synchronized(this){
+			if(views!=mViews)
+				resolve(views);
+			BitSet t=mFrame;
+			mFrame=mPending;
+			mPending=t;
+			mPending.clear();
+			any=!mFrame.isEmpty();
+			for(int d=1;d<=maxDepth;d++){
+				t=mFrameReentrant[d];
+				mFrameReentrant[d]=mReentrant[d];
+				mReentrant[d]=t;
+				mReentrant[d].clear();
+				any|=!mFrameReentrant[d].isEmpty();
+				for(int i=0;i<mViews.length;i++){
+					t=mFrameOwn[i][d];
+					mFrameOwn[i][d]=mOwn[i][d];
+					mOwn[i][d]=t;
+					mOwn[i][d].clear();
+				}
+			}
+			all=mAllPending;
+			mAllPending=false;
+			if(any || all)
+				mFrames++;
+		}
+		if(!any && !all)
+			return false;
+		int cols=mData.cols();
+		for(int i=0;i<mViews.length;i++){
+			mCurrent=mViews[i];
+			try{
+				if(all){
+					mCurrentDepth=0;
+					mViews[i].show(mData);
+					continue;
+				}
+				for(int d=0;d<=maxDepth;d++){
+					mDelta.clear();
+					if(d==0)
+						mDelta.or(mFrame);
+					else{
+						mDelta.or(mFrameReentrant[d]);
+						// cells this view set itself, unless another view set them too
+						mHidden.clear();
+						mHidden.or(mFrameOwn[i][d]);
+						for(int j=0;j<mViews.length;j++)
+							if(j!=i)
+								mHidden.andNot(mFrameOwn[j][d]);
+						mDelta.andNot(mHidden);
+					}
+					if(mDelta.isEmpty())
+						continue;
+					mCurrentDepth=d;
+					mViews[i].update(mData,CellRange.of(mDelta,cols));
+					synchronized(this){
+						mDeltas++;
+					}
+				}
+			}finally{
+				mCurrent=null;
+			}
+		}
+		return true;
+	}
+	// takes the sheet's current views, keeping the pending writes of those
+	// that were already there
+	private void resolve(DataView[] views){
+		BitSet[][] own=new BitSet[views.length][];
+		BitSet[][] frameOwn=new BitSet[views.length][];
+		for(int i=0;i<views.length;i++){
+			int old=-1;
+			for(int j=0;j<mViews.length && old<0;j++)
+				if(mViews[j]==views[i])
+					old=j;
+			if(old>=0){
+				own[i]=mOwn[old];
+				frameOwn[i]=mFrameOwn[old];
+				continue;
+			}
+			own[i]=new BitSet[maxDepth+1];
+			frameOwn[i]=new BitSet[maxDepth+1];
+			for(int d=1;d<=maxDepth;d++){
+				own[i][d]=new BitSet();
+				frameOwn[i][d]=new BitSet();
+			}
+		}
+		mViews=views;
+		mOwn=own;
+		mFrameOwn=frameOwn;
+	}
+	// v is always one of mViews: mCurrent is only set from them, and they
+	// only change between deliveries
+	private int indexOf(DataView v){
+		for(int i=0;i<mViews.length;i++)
+			if(mViews[i]==v)
+				return i;
+		throw new IllegalStateException("view not known to the bus");
+	}
+}
@@ -35,6 +35,14 @@ public class spreadsheetApp{
 	        }
 	        mData.setCharts(mTable, mBarChart, mPieChart);
 	        mData.setData(d);
+	        //row 3 sums the column above it, so editing [0][0] recomputes [3][0]
+	        Formula sum=new Formula(){
+	        	public double eval(double[] in){
+	        		return in[0]+in[1]+in[2];
+	        	}
+	        };
+	        for(int j=0;j<4;j++)
+	        	mData.setFormula(3,j,sum,new int[]{0,j},new int[]{1,j},new int[]{2,j});
 	        mTable.onUpdate();
 	}
 	public static void init(){
@@ -1,23 +1,307 @@
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 
 public class spreadsheetData {
-	public double[][] mData;
+	private ColumnStore mData;
+	private SheetReader mReader;	// read-only view of mData handed to the views
+	private SheetAggregates mAggregates;
 	//public String[] mColName;
 	//public String[] mRowName;
 	private Table mTable;
 	private BarChart mBarChart;
 	private PieChart mPieChart;
+	private volatile DataView[] mViews=new DataView[0];	// replaced, never changed in place
+	private UpdateBus mBus;	// null: views are updated synchronously
+	// dependency graph, keyed by cell = row*cols+col; only formula cells and
+	// the cells they read have a node, so a large sheet costs nothing extra
+	private int mRows,mCols;
+	private HashMap<Long,Node> mGraph;
+	private double[][] mArgs=new double[8][];	// by input count
+	
+	private static class Node {
+		Formula formula;	// null for a cell that is only read by formulas
+		long[] inputs;		// cells the formula reads
+		long[] dependents=new long[2];	// formula cells reading this cell
+		int dependentsSize;
+	}
+	
 	public void setCharts(Table t,BarChart b,PieChart p){
 		mTable=t;
 		mBarChart=b;
 		mPieChart=p;
+		mViews=new DataView[]{t,b,p};
+	}
+	// a view added while an UpdateBus runs gets its updates from the next frame
+	public synchronized void addView(DataView v){
+		DataView[] views=Arrays.copyOf(mViews,mViews.length+1);
+		views[mViews.length]=v;
+		mViews=views;
+		if(mBus!=null)
+			mBus.publishAll();
+		else if(mData!=null)
+			v.show(this);
+	}
+	public DataView[] getViews(){
+		return mViews;
+	}
+	public synchronized void setBus(UpdateBus bus){
+		mBus=bus;
 	}
+	// copies newData into an off-heap store
 	public void setData(double[][] newData){
+		setStore(ColumnStore.offHeap(newData));
+	}
+	// uses store in place, e.g. a memory-mapped ColumnStore
+	public synchronized void setStore(final ColumnStore newData){
 		mData=newData;
+		mReader=new SheetReader(){
+			public int rows(){
+				return newData.rows();
+			}
+			public int cols(){
+				return newData.cols();
+			}
+			public double get(int row,int col){
+				return newData.get(row,col);
+			}
+			public DoubleBuffer column(int col){
+				return newData.column(col);
+			}
+		};
+		mAggregates=new SheetAggregates(newData);
+		if(mGraph==null || mRows!=rows() || mCols!=cols()){
+			mRows=rows();
+			mCols=cols();
+			mGraph=new HashMap<Long,Node>();
+		}else{
+			recalcAll();
+		}
 		onUpdate();
 	}
+	public SheetReader getReader(){
+		return mReader;
+	}
+	public SheetAggregates getAggregates(){
+		return mAggregates;
+	}
+	public int rows(){
+		return mData.rows();
+	}
+	public int cols(){
+		return mData.cols();
+	}
+	public double get(int row,int col){
+		return mData.get(row,col);
+	}
+	// sets a constant, dropping any formula the cell had, and recomputes
+	// only the cells downstream of it
+	public synchronized void setCell(int row,int col,double value){
+		long cell=cell(row,col);
+		Node n=mGraph.get(cell);
+		if(n!=null && n.formula!=null)
+			unlink(cell,n);
+		else if(mData.get(row,col)==value)
+			return;
+		write(row,col,value);
+		notifyViews(recalc(new long[]{cell}),row,col);
+	}
+	// cell (row,col) becomes f applied to the given input cells, each {row,col}
+	public synchronized void setFormula(int row,int col,Formula f,int[]... inputs){
+		long cell=cell(row,col);
+		long[] in=new long[inputs.length];
+		for(int i=0;i<inputs.length;i++)
+			in[i]=cell(inputs[i][0],inputs[i][1]);
+		for(int i=0;i<in.length;i++){
+			if(in[i]==cell || reaches(cell,in[i]))
+				throw new IllegalArgumentException("formula at "+row+","+col+" would form a cycle");
+		}
+		Node old=mGraph.get(cell);
+		if(old!=null && old.formula!=null)
+			unlink(cell,old);
+		Node n=node(cell);
+		n.formula=f;
+		n.inputs=in;
+		for(int i=0;i<in.length;i++)
+			addDependent(node(in[i]),cell);
+		if(in.length>=mArgs.length)
+			mArgs=Arrays.copyOf(mArgs,in.length+1);
+		if(mArgs[in.length]==null)
+			mArgs[in.length]=new double[in.length];
+		notifyViews(recalc(new long[]{cell}),row,col);
+	}
 	public void onUpdate(){
-		mTable.show(this);
-		mBarChart.show(this);
-		mPieChart.show(this);
+		if(mBus!=null){
+			mBus.publishAll();
+			return;
+		}
+		for(int i=0;i<mViews.length;i++)
+			mViews[i].show(this);
+	}
+	// checked, since a column past the end would alias a cell of the next row
+	private long cell(int row,int col){
+		if(row<0 || row>=mRows || col<0 || col>=mCols)
+			throw new IndexOutOfBoundsException("cell "+row+","+col+" outside "+mRows+"x"+mCols);
+		return (long)row*mCols+col;
+	}
+	private int row(long cell){
+		return (int)(cell/mCols);
+	}
+	private int col(long cell){
+		return (int)(cell%mCols);
+	}
+	private Node node(long cell){
+		Node n=mGraph.get(cell);
+		if(n==null){
+			n=new Node();
+			mGraph.put(cell,n);
+		}
+		return n;
+	}
+	// Recomputes every formula downstream of the changed cells in topological
+	// order and returns the ranges whose values actually changed.
+	private CellRange[] recalc(long[] changed){
+		HashMap<Long,Integer> indegree=new HashMap<Long,Integer>();
+		ArrayList<Long> affected=new ArrayList<Long>();
+		for(int i=0;i<changed.length;i++){
+			if(!indegree.containsKey(changed[i])){
+				indegree.put(changed[i],0);
+				affected.add(changed[i]);
+			}
+		}
+		for(int k=0;k<affected.size();k++){	// collect the affected subgraph
+			Node n=mGraph.get(affected.get(k));
+			for(int i=0;n!=null && i<n.dependentsSize;i++){
+				long d=n.dependents[i];
+				if(!indegree.containsKey(d)){
+					indegree.put(d,0);
+					affected.add(d);
+				}
+			}
+		}
+		for(int k=0;k<affected.size();k++){
+			Node n=mGraph.get(affected.get(k));
+			for(int i=0;n!=null && i<n.dependentsSize;i++)
+				indegree.put(n.dependents[i],indegree.get(n.dependents[i])+1);
+		}
+		ArrayList<Long> ready=new ArrayList<Long>();
+		for(int k=0;k<affected.size();k++)
+			if(indegree.get(affected.get(k))==0)
+				ready.add(affected.get(k));
+		long[] touched=new long[affected.size()];
+		int touchedSize=0;
+		for(int head=0;head<ready.size();head++){	// Kahn's algorithm over the affected cells only
+			long c=ready.get(head);
+			Node n=mGraph.get(c);
+			if(n==null || n.formula==null || evaluate(c,n))
+				touched[touchedSize++]=c;
+			for(int i=0;n!=null && i<n.dependentsSize;i++){
+				long d=n.dependents[i];
+				int left=indegree.get(d)-1;
+				indegree.put(d,left);
+				if(left==0)
+					ready.add(d);
+			}
+		}
+		return ranges(touched,touchedSize);
+	}
+	private void recalcAll(){
+		long[] cells=new long[mGraph.size()];
+		int n=0;
+		for(Map.Entry<Long,Node> e : mGraph.entrySet())
+			if(e.getValue().formula!=null)
+				cells[n++]=e.getKey();
+		if(n>0)
+			recalc(Arrays.copyOf(cells,n));
+	}
+	// returns true if the value changed
+	private boolean evaluate(long cell,Node n){
+		long[] in=n.inputs;
+		double[] args=mArgs[in.length];
+		for(int i=0;i<in.length;i++)
+			args[i]=mData.get(row(in[i]),col(in[i]));
+		double v=n.formula.eval(args);
+		if(Double.compare(mData.get(row(cell),col(cell)),v)==0)
+			return false;
+		write(row(cell),col(cell),v);
+		return true;
+	}
+	private void write(int row,int col,double value){
+		mAggregates.apply(row,col,mData.get(row,col),value);
+		mData.set(row,col,value);
+	}
+	// rows of consecutive changed cells become one range each
+	private CellRange[] ranges(long[] cells,int size){
+		long[] sorted=Arrays.copyOf(cells,size);
+		Arrays.sort(sorted);
+		CellRange[] out=new CellRange[size];
+		int n=0;
+		for(int i=0;i<size;){
+			int j=i+1;
+			while(j<size && sorted[j]==sorted[j-1]+1 && sorted[j]%mCols!=0)
+				j++;
+			int row=row(sorted[i]),col=col(sorted[i]);
+			out[n++]=new CellRange(row,col,row+1,col+(j-i));
+			i=j;
+		}
+		return Arrays.copyOf(out,n);
+	}
+	// changed follows from the writer setting cell (row,col)
+	private void notifyViews(CellRange[] changed,int row,int col){
+		if(changed.length==0)
+			return;
+		if(mBus!=null){
+			mBus.publish(changed,new CellRange[]{new CellRange(row,col,row+1,col+1)});
+			return;
+		}
+		for(int i=0;i<mViews.length;i++)
+			mViews[i].update(this,changed);
+	}
+	// true if target is downstream of source
+	private boolean reaches(long source,long target){
+		HashSet<Long> seen=new HashSet<Long>();
+		ArrayList<Long> queue=new ArrayList<Long>();
+		queue.add(source);
+		seen.add(source);
+		for(int head=0;head<queue.size();head++){
+			long c=queue.get(head);
+			if(c==target)
+				return true;
+			Node n=mGraph.get(c);
+			for(int i=0;n!=null && i<n.dependentsSize;i++){
+				if(seen.add(n.dependents[i]))
+					queue.add(n.dependents[i]);
+			}
+		}
+		return false;
+	}
+	private void unlink(long cell,Node n){
+		long[] in=n.inputs;
+		for(int i=0;i<in.length;i++){
+			Node source=mGraph.get(in[i]);
+			long[] deps=source.dependents;
+			int size=source.dependentsSize;
+			for(int j=0;j<size;j++){
+				if(deps[j]==cell){
+					deps[j]=deps[--size];
+					break;
+				}
+			}
+			source.dependentsSize=size;
+			if(size==0 && source.formula==null)
+				mGraph.remove(in[i]);
+		}
+		n.formula=null;
+		n.inputs=null;
+		if(n.dependentsSize==0)
+			mGraph.remove(cell);
+	}
+	private void addDependent(Node n,long dependent){
+		if(n.dependentsSize==n.dependents.length)
+			n.dependents=Arrays.copyOf(n.dependents,n.dependentsSize*2);
+		n.dependents[n.dependentsSize++]=dependent;
 	}
 }
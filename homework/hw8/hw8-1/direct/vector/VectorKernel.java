@@ -0,0 +1,61 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// StatsKernel on the JDK Vector API. It needs the incubator module, so it
+// is kept out of src/ and built only by "make vector" ("make bench" runs
+// StatsBench with it). ColumnStats falls back to ScalarKernel when it is
+// not on the class path.
+public class VectorKernel implements StatsKernel {
+	private static final VectorSpecies<Double> SPECIES=DoubleVector.SPECIES_PREFERRED;
+	private static final ByteOrder ORDER=ByteOrder.nativeOrder();
+	
+	public double sum(ByteBuffer b,int n){
+		DoubleVector acc=DoubleVector.zero(SPECIES);
+		int i=0;
+		for(int bound=SPECIES.loopBound(n);i<bound;i+=SPECIES.length())
+			acc=acc.add(DoubleVector.fromByteBuffer(SPECIES,b,i<<3,ORDER));
+		double s=acc.reduceLanes(VectorOperators.ADD);
+		for(;i<n;i++)
+			s+=b.getDouble(i<<3);
+		return s;
+	}
+	public double squaredDeviation(ByteBuffer b,int n,double mean){
+		DoubleVector acc=DoubleVector.zero(SPECIES);
+		DoubleVector m=DoubleVector.broadcast(SPECIES,mean);
+		int i=0;
+		for(int bound=SPECIES.loopBound(n);i<bound;i+=SPECIES.length()){
+			DoubleVector d=DoubleVector.fromByteBuffer(SPECIES,b,i<<3,ORDER).sub(m);
+			acc=d.fma(d,acc);
+		}
+		double s=acc.reduceLanes(VectorOperators.ADD);
+		for(;i<n;i++){
+			double d=b.getDouble(i<<3)-mean;
+			s+=d*d;
+		}
+		return s;
+	}
+	public double min(ByteBuffer b,int n){
+		DoubleVector acc=DoubleVector.broadcast(SPECIES,Double.POSITIVE_INFINITY);
+		int i=0;
+		for(int bound=SPECIES.loopBound(n);i<bound;i+=SPECIES.length())
+			acc=acc.min(DoubleVector.fromByteBuffer(SPECIES,b,i<<3,ORDER));
+		double m=acc.reduceLanes(VectorOperators.MIN);
+		for(;i<n;i++)
+			m=Math.min(m,b.getDouble(i<<3));
+		return m;
+	}
+	public double max(ByteBuffer b,int n){
+		DoubleVector acc=DoubleVector.broadcast(SPECIES,Double.NEGATIVE_INFINITY);
+		int i=0;
+		for(int bound=SPECIES.loopBound(n);i<bound;i+=SPECIES.length())
+			acc=acc.max(DoubleVector.fromByteBuffer(SPECIES,b,i<<3,ORDER));
+		double m=acc.reduceLanes(VectorOperators.MAX);
+		for(;i<n;i++)
+			m=Math.max(m,b.getDouble(i<<3));
+		return m;
+	}
+}
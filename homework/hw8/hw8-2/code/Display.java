@@ -0,0 +1,29 @@
+public class Display{
+	private void showCurrent(WeatherData data){
+		System.out.format("area %d: %.1f C, %.1f %%, %.1f hPa%n", data.getArea(),
+				data.getTemperature(), data.getHumidity(), data.getPressure());
+	}
+	private void showStatistics(WeatherData data){
+		WeatherSystem system = data.getSystem();
+		long now = WeatherData.now();
+		String[] names = { "temperature", "humidity", "pressure" };
+		for(int c=0;c<names.length;c++){
+			StatsSketch s = system.getStatistics(data.getArea(), c).window(now);
+			System.out.format("  %s: mean %.2f, var %.2f, min %.1f, max %.1f, p50 %.1f, p95 %.1f, p99 %.1f%n",
+					names[c], s.getMean(), s.getVariance(), s.getMin(), s.getMax(),
+					s.quantile(0.5), s.quantile(0.95), s.quantile(0.99));
+		}
+	}
+	private void showForecast(WeatherData data){
+		WeatherSystem system = data.getSystem();
+		int area = data.getArea();
+		System.out.format("  forecast: %.1f C, %.1f %%, %.1f hPa%n", system.getForecast(area, 0, 1),
+				system.getForecast(area, 1, 1), system.getForecast(area, 2, 1));
+	}
+	// called with each WeatherData that changed
+	public void show(WeatherData data){
+		showCurrent(data);
+		showStatistics(data);
+		showForecast(data);
+	}
+}
@@ -0,0 +1,72 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Holt's linear exponential smoothing for every area at once. State is two
+// float columns (level, trend) indexed by area, and a tick runs one
+// ForecastKernel pass over them, split into chunks across the common
+// fork-join pool. The Vector API kernel is used when it was built and the
+// incubator module is present, the scalar one otherwise.
+public class ForecastEngine{
+	private static final int CHUNK = 4096;
+	private static final ForecastKernel KERNEL = loadKernel();
+	private final float alpha, beta;
+	private final float[] level;	// NaN until the area's first reading
+	private final float[] trend;
+
+	public ForecastEngine(int areas, float alpha, float beta){
+		this.alpha = alpha;
+		this.beta = beta;
+		level = new float[areas];
+		trend = new float[areas];
+		Arrays.fill(level, Float.NaN);
+	}
+	public static ForecastKernel kernel(){
+		return KERNEL;
+	}
+	private static ForecastKernel loadKernel(){
+		try{
+			return (ForecastKernel)Class.forName("VectorForecastKernel").getDeclaredConstructor().newInstance();
+		}catch(ReflectiveOperationException | LinkageError e){
+			return new ScalarForecastKernel();
+		}
+	}
+	// observed[a] is the new reading of area a, NaN when there is none;
+	// areas without a reading move along their trend. tick and the forecasts
+	// lock the engine, so a forecast never sees a level and trend from
+	// different ticks.
+	public synchronized void tick(final float[] observed){
+		int chunks = (level.length + CHUNK - 1) / CHUNK;
+		if(chunks == 1){
+			KERNEL.update(level, trend, observed, alpha, beta, 0, level.length);
+			return;
+		}
+		IntStream.range(0, chunks).parallel().forEach(c -> KERNEL.update(level, trend, observed, alpha, beta, c * CHUNK, Math.min(level.length, (c + 1) * CHUNK)));
+	}
+	// NaN before the area's first reading
+	public synchronized float forecast(int area, int steps){
+		return level[area] + steps * trend[area];
+	}
+	// forecasts of every area, steps ticks ahead, into out
+	public synchronized void forecastAll(int steps, float[] out){
+		for(int i=0;i<level.length;i++)
+			out[i] = level[i] + steps * trend[i];
+	}
+	// usage: java ForecastEngine [areas] [ticks]
+	public static void main(String[] args){
+		int areas = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		ForecastEngine e = new ForecastEngine(areas, 0.5f, 0.3f);
+		float[] observed = new float[areas];
+		java.util.Random ran = new java.util.Random(1);
+		for(int t=0;t<ticks;t++){	// warm-up, also feeds a rising series
+			for(int i=0;i<areas;i++)
+				observed[i] = ran.nextInt(4) == 0 ? Float.NaN : 20 + 0.1f * t + ran.nextFloat();
+			e.tick(observed);
+		}
+		long start = System.nanoTime();
+		for(int t=0;t<ticks;t++)
+			e.tick(observed);
+		double perTick = (System.nanoTime() - start) / 1e6 / ticks;
+		System.out.format("%s, %d areas: %.3f ms per tick, area 0 next %.2f%n", KERNEL.getClass().getName(), areas, perTick, e.forecast(0, 1));
+	}
+}
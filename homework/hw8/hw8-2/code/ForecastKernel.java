@@ -0,0 +1,6 @@
+// One Holt smoothing step over areas [from, to). A level of NaN means the
+// area has had no reading yet; observed[i] is NaN when area i has none
+// this tick.
+public interface ForecastKernel{
+	public void update(float[] level, float[] trend, float[] observed, float alpha, float beta, int from, int to);
+}
@@ -0,0 +1,69 @@
+import java.util.Random;
+
+// Readings/s and submit-to-display latency of IngestPipeline as the shard
+// count grows. Displays only count what they are shown.
+// usage: java IngestBench [areas] [readings] [producers]
+public class IngestBench{
+	static class CountingDisplay extends Display{
+		long shown;
+		public void show(WeatherData data){
+			shown++;
+		}
+	}
+	public static void main(String[] args) throws InterruptedException{
+		final int areas = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		final int readings = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+		final int producers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+		int cores = Runtime.getRuntime().availableProcessors();
+		for(int shards=1;shards<=Math.max(8, cores);shards*=2){
+			WeatherSystem system = new WeatherSystem(areas);
+			CountingDisplay display = new CountingDisplay();
+			Thread dispatcher = system.start(display);
+			final IngestPipeline pipeline = new IngestPipeline(system, shards, 64);
+			Thread[] threads = new Thread[producers];
+			long t0 = System.nanoTime();
+			for(int k=0;k<producers;k++){
+				final int seed = k;
+				threads[k] = new Thread(new Runnable(){
+					public void run(){
+						produce(pipeline, areas, readings / producers, seed);
+					}
+				});
+				threads[k].start();
+			}
+			for(Thread t : threads)
+				t.join();
+			pipeline.close();
+			long nanos = System.nanoTime() - t0;
+			Thread.sleep(50);
+			system.stop();
+			dispatcher.join();
+			System.out.format("%2d shards: %10.0f readings/s, %d shown, %d late, latency p50 %.2f ms, p99 %.2f ms%n",
+					shards, readings / (nanos / 1e9), display.shown, system.getLate(),
+					system.latencyPercentile(50) / 1e6, system.latencyPercentile(99) / 1e6);
+		}
+	}
+	private static void produce(IngestPipeline pipeline, int areas, int readings, int seed){
+		Random ran = new Random(seed);
+		int batch = 1000;
+		int[] area = new int[batch];
+		long[] time = new long[batch];
+		float[] t = new float[batch], h = new float[batch], p = new float[batch];
+		try{
+			for(int done=0;done<readings;done+=batch){
+				int n = Math.min(batch, readings - done);
+				long now = System.currentTimeMillis();
+				for(int i=0;i<n;i++){
+					area[i] = ran.nextInt(areas);
+					time[i] = now;
+					t[i] = 15 + ran.nextFloat() * 15;
+					h[i] = 40 + ran.nextFloat() * 50;
+					p[i] = 1000 + ran.nextFloat() * 30;
+				}
+				pipeline.submit(area, time, t, h, p, n);
+			}
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,117 @@
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Feeds readings into a WeatherSystem through shards keyed by area. Each
+// shard has one writer thread, so an area is only ever tracked by one
+// thread, and a bounded queue, so producers block when a shard falls
+// behind instead of piling up readings. If a writer dies, every later
+// submit() and close() throws instead of waiting on its full queue.
+public class IngestPipeline{
+	private static final Batch STOP = new Batch(0);
+	private final WeatherSystem system;
+	private final Shard[] shards;
+	private volatile Throwable failure;	// what stopped a writer, if any
+
+	static class Shard{
+		final ArrayBlockingQueue<Batch> queue;
+		Thread writer;
+		Shard(int capacity){
+			queue = new ArrayBlockingQueue<Batch>(capacity);
+		}
+	}
+	static class Batch{
+		final int[] area;
+		final long[] time;
+		final float[] t, h, p;
+		int size;
+		long submitted;
+		Batch(int capacity){
+			area = new int[capacity];
+			time = new long[capacity];
+			t = new float[capacity];
+			h = new float[capacity];
+			p = new float[capacity];
+		}
+	}
+
+	public IngestPipeline(WeatherSystem _system, int shardCount, int queueBatches){
+		system = _system;
+		shards = new Shard[shardCount];
+		for(int s=0;s<shardCount;s++){
+			final Shard shard = shards[s] = new Shard(queueBatches);
+			shard.writer = new Thread(new Runnable(){
+				public void run(){
+					write(shard.queue);
+				}
+			}, "ingest-" + s);
+			shard.writer.start();
+		}
+	}
+	public int shardOf(int area){
+		return Math.floorMod(area, shards.length);
+	}
+	public void submit(int area, long time, float t, float h, float p) throws InterruptedException{
+		submit(new int[]{ area }, new long[]{ time }, new float[]{ t }, new float[]{ h }, new float[]{ p }, 1);
+	}
+	// Submits readings [0, n) of the arrays, split by shard; blocks while a
+	// shard's queue is full.
+	public void submit(int[] area, long[] time, float[] t, float[] h, float[] p, int n) throws InterruptedException{
+		long now = System.nanoTime();
+		checkFailure();
+		int[] counts = new int[shards.length];
+		for(int i=0;i<n;i++)
+			counts[shardOf(area[i])]++;
+		Batch[] batches = new Batch[shards.length];
+		for(int s=0;s<shards.length;s++){
+			if(counts[s] > 0){
+				batches[s] = new Batch(counts[s]);
+				batches[s].submitted = now;
+			}
+		}
+		for(int i=0;i<n;i++){
+			Batch b = batches[shardOf(area[i])];
+			int k = b.size++;
+			b.area[k] = area[i];
+			b.time[k] = time[i];
+			b.t[k] = t[i];
+			b.h[k] = h[i];
+			b.p[k] = p[i];
+		}
+		for(int s=0;s<shards.length;s++)
+			if(batches[s] != null)
+				put(shards[s], batches[s]);
+	}
+	// stops after everything already submitted is tracked
+	public void close() throws InterruptedException{
+		for(int s=0;s<shards.length;s++)
+			put(shards[s], STOP);
+		for(int s=0;s<shards.length;s++)
+			shards[s].writer.join();
+		checkFailure();
+	}
+	// waits for room like put(), but gives up once any writer has failed
+	private void put(Shard shard, Batch b) throws InterruptedException{
+		while(!shard.queue.offer(b, 10, TimeUnit.MILLISECONDS))
+			checkFailure();
+	}
+	private void checkFailure(){
+		Throwable f = failure;
+		if(f != null)
+			throw new IllegalStateException("an ingest writer failed", f);
+	}
+	private void write(ArrayBlockingQueue<Batch> queue){
+		try{
+			while(true){
+				Batch b = queue.take();
+				if(b == STOP)
+					return;
+				for(int i=0;i<b.size;i++)
+					system.getData(b.area[i]).track(b.time[i], b.t[i], b.h[i], b.p[i], b.submitted);
+			}
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}catch(RuntimeException | Error e){
+			failure = e;
+		}
+	}
+}
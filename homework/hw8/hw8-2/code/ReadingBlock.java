@@ -0,0 +1,171 @@
+// A fixed-size, append-only block of readings for one area, compressed
+// Gorilla-style: timestamps as delta-of-deltas in variable-width buckets,
+// each float channel as the XOR against its previous value with only the
+// meaningful bits stored. Blocks are decoded front to back.
+public class ReadingBlock{
+	public static final int WORDS = 256;	// 2 KB per block
+	private static final int MAX_RECORD_BITS = 4 + 64 + 3 * (2 + 5 + 5 + 32);
+	private static final int CHANNELS = 3;
+	private final long[] words = new long[WORDS];
+	private int pos;	// bits written
+	private volatile int count;
+	private long firstTime;
+	private volatile long lastTime;	// read by scans alongside the writer
+	// encoder state
+	private long prevDelta;
+	private final int[] prevBits = new int[CHANNELS];
+	private final int[] prevLeading = new int[CHANNELS];
+	private final int[] prevTrailing = new int[CHANNELS];
+
+	// returns false when the block is full; time must not go backwards
+	public boolean append(long time, float t, float h, float p){
+		if(pos + MAX_RECORD_BITS > WORDS * 64)
+			return false;
+		if(count == 0){
+			write(time, 64);
+			firstTime = time;
+			for(int c=0;c<CHANNELS;c++)
+				prevLeading[c] = -1;
+		}else{
+			long delta = time - lastTime;
+			long dod = delta - prevDelta;
+			if(dod == 0){
+				write(0, 1);
+			}else if(dod >= -64 && dod < 64){
+				write(0x2, 2);
+				write(dod, 7);
+			}else if(dod >= -256 && dod < 256){
+				write(0x6, 3);
+				write(dod, 9);
+			}else if(dod >= -2048 && dod < 2048){
+				write(0xE, 4);
+				write(dod, 12);
+			}else{
+				write(0xF, 4);
+				write(dod, 64);
+			}
+			prevDelta = delta;
+		}
+		lastTime = time;
+		writeValue(0, Float.floatToIntBits(t));
+		writeValue(1, Float.floatToIntBits(h));
+		writeValue(2, Float.floatToIntBits(p));
+		count++;
+		return true;
+	}
+	public int size(){
+		return count;
+	}
+	public long getFirstTime(){
+		return firstTime;
+	}
+	public long getLastTime(){
+		return lastTime;
+	}
+	// visits the readings with from <= time < to
+	public void scan(long from, long to, ReadingVisitor v){
+		int n = count;
+		if(n == 0)
+			return;
+		int[] cursor = new int[1];
+		int[] bits = new int[CHANNELS];
+		int[] leading = new int[CHANNELS];
+		int[] trailing = new int[CHANNELS];
+		long time = read(cursor, 64);
+		long delta = 0;
+		for(int i=0;i<n;i++){
+			if(i > 0){
+				long dod;
+				if(read(cursor, 1) == 0)
+					dod = 0;
+				else if(read(cursor, 1) == 0)
+					dod = signed(read(cursor, 7), 7);
+				else if(read(cursor, 1) == 0)
+					dod = signed(read(cursor, 9), 9);
+				else if(read(cursor, 1) == 0)
+					dod = signed(read(cursor, 12), 12);
+				else
+					dod = read(cursor, 64);
+				delta += dod;
+				time += delta;
+			}
+			for(int c=0;c<CHANNELS;c++){
+				if(i == 0){
+					bits[c] = (int)read(cursor, 32);
+				}else if(read(cursor, 1) != 0){
+					if(read(cursor, 1) != 0){
+						leading[c] = (int)read(cursor, 5);
+						int length = (int)read(cursor, 5) + 1;
+						trailing[c] = 32 - leading[c] - length;
+					}
+					int length = 32 - leading[c] - trailing[c];
+					bits[c] ^= (int)read(cursor, length) << trailing[c];
+				}
+			}
+			if(time >= to)
+				return;
+			if(time >= from)
+				v.visit(time, Float.intBitsToFloat(bits[0]), Float.intBitsToFloat(bits[1]), Float.intBitsToFloat(bits[2]));
+		}
+	}
+	private void writeValue(int c, int bits){
+		if(count == 0){
+			write(bits, 32);
+			prevBits[c] = bits;
+			return;
+		}
+		int x = bits ^ prevBits[c];
+		prevBits[c] = bits;
+		if(x == 0){
+			write(0, 1);
+			return;
+		}
+		int leading = Math.min(31, Integer.numberOfLeadingZeros(x));
+		int trailing = Integer.numberOfTrailingZeros(x);
+		if(prevLeading[c] >= 0 && leading >= prevLeading[c] && trailing >= prevTrailing[c]){
+			write(0x2, 2);
+			write(x >>> prevTrailing[c], 32 - prevLeading[c] - prevTrailing[c]);
+		}else{
+			int length = 32 - leading - trailing;
+			write(0x3, 2);
+			write(leading, 5);
+			write(length - 1, 5);
+			write(x >>> trailing, length);
+			prevLeading[c] = leading;
+			prevTrailing[c] = trailing;
+		}
+	}
+	// appends the low n bits of value, most significant first
+	private void write(long value, int n){
+		int idx = pos >>> 6;
+		int free = 64 - (pos & 63);
+		value &= mask(n);
+		if(n <= free){
+			words[idx] |= value << (free - n);
+		}else{
+			words[idx] |= value >>> (n - free);
+			words[idx+1] |= value << (64 - (n - free));
+		}
+		pos += n;
+	}
+	private long read(int[] cursor, int n){
+		int at = cursor[0];
+		int idx = at >>> 6;
+		int free = 64 - (at & 63);
+		long value;
+		if(n <= free){
+			value = (words[idx] >>> (free - n)) & mask(n);
+		}else{
+			int rest = n - free;
+			value = ((words[idx] & mask(free)) << rest) | (words[idx+1] >>> (64 - rest));
+		}
+		cursor[0] = at + n;
+		return value;
+	}
+	private static long mask(int n){
+		return n == 64 ? -1L : (1L << n) - 1;
+	}
+	private static long signed(long value, int n){
+		return (value << (64 - n)) >> (64 - n);
+	}
+}
@@ -0,0 +1,74 @@
+import java.util.Arrays;
+
+// Append-only history of readings per area, kept as chains of compressed
+// ReadingBlocks. One writer per area; scans may run alongside it. A chain
+// publishes a new block by storing it, then the array, then the count, so
+// a reader that reads the count first sees every block up to it.
+public class ReadingStore{
+	private final Chain[] chains;
+
+	private static class Chain{
+		volatile ReadingBlock[] blocks;	// oldest first
+		volatile int count;
+	}
+
+	public ReadingStore(int areas){
+		chains = new Chain[areas];
+		for(int a=0;a<areas;a++)
+			chains[a] = new Chain();
+	}
+	public void append(int area, long time, float t, float h, float p){
+		Chain c = chains[area];
+		int n = c.count;
+		ReadingBlock[] chain = c.blocks;
+		if(n > 0 && time < chain[n-1].getLastTime())
+			throw new IllegalArgumentException("reading for area " + area + " is older than the last one");
+		if(n == 0 || !chain[n-1].append(time, t, h, p)){
+			if(chain == null)
+				chain = new ReadingBlock[4];
+			else if(n == chain.length)
+				chain = Arrays.copyOf(chain, n * 2);
+			ReadingBlock b = new ReadingBlock();
+			b.append(time, t, h, p);
+			chain[n] = b;
+			c.blocks = chain;
+			c.count = n + 1;
+		}
+	}
+	// visits the area's readings with from <= time < to, oldest first
+	public void scan(int area, long from, long to, ReadingVisitor v){
+		Chain c = chains[area];
+		int n = c.count;
+		ReadingBlock[] chain = c.blocks;
+		for(int i=0;i<n;i++){
+			ReadingBlock b = chain[i];
+			if(b.getLastTime() < from)
+				continue;
+			if(b.getFirstTime() >= to)
+				return;
+			b.scan(from, to, v);
+		}
+	}
+	// time of the area's newest reading, Long.MIN_VALUE if it has none
+	public long lastTime(int area){
+		Chain c = chains[area];
+		int n = c.count;
+		return n == 0 ? Long.MIN_VALUE : c.blocks[n-1].getLastTime();
+	}
+	public long size(int area){
+		Chain c = chains[area];
+		int n = c.count;
+		ReadingBlock[] chain = c.blocks;
+		long size = 0;
+		for(int i=0;i<n;i++)
+			size += chain[i].size();
+		return size;
+	}
+	// bytes held by block data
+	public long memoryBytes(){
+		long blocksHeld = 0;
+		for(int a=0;a<chains.length;a++)
+			blocksHeld += chains[a].count;
+		return blocksHeld * ReadingBlock.WORDS * 8;
+	}
+}
@@ -0,0 +1,3 @@
+public interface ReadingVisitor{
+	public void visit(long time, float temperature, float humidity, float pressure);
+}
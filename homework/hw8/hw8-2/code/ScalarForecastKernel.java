@@ -0,0 +1,17 @@
+// ForecastKernel in plain Java. Each lane is computed both ways and picked
+// with selects, the same shape as VectorForecastKernel; C2 does not
+// vectorize float selects on JDK 17, so this is the fallback, not the
+// fast path.
+public class ScalarForecastKernel implements ForecastKernel{
+	public void update(float[] level, float[] trend, float[] observed, float alpha, float beta, int from, int to){
+		for(int i=from;i<to;i++){
+			float x = observed[i], l = level[i], t = trend[i];
+			float predicted = l + t;
+			float smoothed = alpha * x + (1 - alpha) * predicted;
+			float slope = beta * (smoothed - l) + (1 - beta) * t;
+			boolean has = x == x, started = l == l;
+			level[i] = !has ? predicted : started ? smoothed : x;
+			trend[i] = has && started ? slope : t;
+		}
+	}
+}
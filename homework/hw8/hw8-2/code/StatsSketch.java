@@ -0,0 +1,164 @@
+// Mergeable summary of a stream of values: count, mean and variance
+// (Welford, merged with Chan's formula), min/max, and a log-bucket quantile
+// sketch (DDSketch) whose answers are within 1% relative error. Each side of
+// zero keeps at most MAX_BUCKETS buckets, so memory stays bounded.
+public class StatsSketch{
+	private static final double ALPHA = 0.01;
+	private static final double GAMMA = (1 + ALPHA) / (1 - ALPHA);
+	private static final double LOG_GAMMA = Math.log(GAMMA);
+	private static final double MIN_INDEXABLE = 1e-9;
+	private static final int MAX_BUCKETS = 1024;
+	private long count;
+	private double mean, m2;
+	private double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+	private long zeros;
+	private final Buckets positive = new Buckets();
+	private final Buckets negative = new Buckets();
+
+	public void add(double x){
+		count++;
+		double d = x - mean;
+		mean += d / count;
+		m2 += d * (x - mean);
+		min = Math.min(min, x);
+		max = Math.max(max, x);
+		if(x > MIN_INDEXABLE)
+			positive.add(index(x), 1);
+		else if(x < -MIN_INDEXABLE)
+			negative.add(index(-x), 1);
+		else
+			zeros++;
+	}
+	public void merge(StatsSketch o){
+		if(o.count == 0)
+			return;
+		long n = count + o.count;
+		double d = o.mean - mean;
+		mean += d * o.count / n;
+		m2 += o.m2 + d * d * count * o.count / n;
+		count = n;
+		min = Math.min(min, o.min);
+		max = Math.max(max, o.max);
+		zeros += o.zeros;
+		positive.merge(o.positive);
+		negative.merge(o.negative);
+	}
+	public void clear(){
+		count = 0;
+		mean = m2 = 0;
+		min = Double.POSITIVE_INFINITY;
+		max = Double.NEGATIVE_INFINITY;
+		zeros = 0;
+		positive.clear();
+		negative.clear();
+	}
+	public long getCount(){
+		return count;
+	}
+	public double getMean(){
+		return mean;
+	}
+	public double getVariance(){
+		return count == 0 ? 0 : m2 / count;
+	}
+	public double getMin(){
+		return min;
+	}
+	public double getMax(){
+		return max;
+	}
+	// q in [0, 1]
+	public double quantile(double q){
+		if(count == 0)
+			return Double.NaN;
+		long rank = (long)(q * (count - 1));
+		double v;
+		if(rank < negative.total){
+			v = -value(negative.indexFromTop(rank));
+		}else if(rank < negative.total + zeros){
+			v = 0;
+		}else{
+			v = value(positive.indexFromBottom(rank - negative.total - zeros));
+		}
+		return Math.max(min, Math.min(max, v));
+	}
+	private static int index(double x){
+		return (int)Math.ceil(Math.log(x) / LOG_GAMMA);
+	}
+	private static double value(int index){
+		return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+	}
+
+	// counts for a contiguous range of bucket indices; when the range grows
+	// past MAX_BUCKETS the lowest buckets are folded together
+	private static class Buckets{
+		long[] counts = new long[0];
+		int offset;	// bucket index of counts[0]
+		long total;
+
+		void add(int index, long n){
+			if(counts.length == 0){
+				counts = new long[16];
+				offset = index - 8;
+			}
+			if(index < offset && counts.length < MAX_BUCKETS)
+				grow(index, offset + counts.length - 1);
+			else if(index >= offset + counts.length)
+				grow(offset, index);
+			if(index < offset)	// folded into the lowest bucket
+				index = offset;
+			counts[index - offset] += n;
+			total += n;
+		}
+		void merge(Buckets o){
+			for(int i=0;i<o.counts.length;i++)
+				if(o.counts[i] != 0)
+					add(o.offset + i, o.counts[i]);
+		}
+		// back to empty, so the next add() centres a fresh range on its value
+		void clear(){
+			counts = new long[0];
+			offset = 0;
+			total = 0;
+		}
+		int indexFromBottom(long rank){
+			long seen = 0;
+			for(int i=0;i<counts.length;i++){
+				seen += counts[i];
+				if(seen > rank)
+					return offset + i;
+			}
+			return offset + counts.length - 1;
+		}
+		int indexFromTop(long rank){
+			long seen = 0;
+			for(int i=counts.length-1;i>=0;i--){
+				seen += counts[i];
+				if(seen > rank)
+					return offset + i;
+			}
+			return offset;
+		}
+		private void grow(int low, int high){
+			int end = offset + counts.length - 1;
+			int newLow = Math.min(low, offset), newHigh = Math.max(high, end);
+			int span = newHigh - newLow + 1;
+			if(span > MAX_BUCKETS){
+				newLow = newHigh - MAX_BUCKETS + 1;
+			}else{
+				// leave room on the side that grew
+				int extra = Math.min(MAX_BUCKETS, Math.max(span, counts.length * 2)) - span;
+				if(low < offset)
+					newLow -= extra;
+				else
+					newHigh += extra;
+			}
+			long[] c = new long[newHigh - newLow + 1];
+			for(int i=0;i<counts.length;i++)
+				if(counts[i] != 0)
+					c[Math.max(offset + i, newLow) - newLow] += counts[i];
+			counts = c;
+			offset = newLow;
+		}
+	}
+}
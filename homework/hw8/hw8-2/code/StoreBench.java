@@ -0,0 +1,63 @@
+import java.util.Random;
+
+// Memory and speed of ReadingStore on per-minute readings: bytes per reading
+// against 20 uncompressed (long time, three floats), append rate, and the
+// decode rate of full and one-day range scans over every area.
+// usage: java StoreBench [areas] [days]
+public class StoreBench{
+	static class Sum implements ReadingVisitor{
+		long n;
+		double sum;
+		public void visit(long time, float t, float h, float p){
+			n++;
+			sum += t + h + p;
+		}
+	}
+	public static void main(String[] args){
+		int areas = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int days = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		int perArea = days * 24 * 60;
+		long start = 1700000000000L, minute = 60000;
+		ReadingStore store = new ReadingStore(areas);
+		Random ran = new Random(1);
+		// sensors report at 0.1 degree, 1 %, 0.1 hPa and drift slowly
+		float[] t = new float[areas], h = new float[areas], p = new float[areas];
+		for(int a=0;a<areas;a++){
+			t[a] = 20;
+			h[a] = 60;
+			p[a] = 1013;
+		}
+		long t0 = System.nanoTime();
+		for(int i=0;i<perArea;i++){
+			for(int a=0;a<areas;a++){
+				t[a] = Math.round((t[a] + (ran.nextInt(3) - 1) * 0.1f) * 10) / 10f;
+				if(ran.nextInt(10) == 0)
+					h[a] = Math.max(0, Math.min(100, h[a] + ran.nextInt(3) - 1));
+				if(ran.nextInt(4) == 0)
+					p[a] = Math.round((p[a] + (ran.nextInt(3) - 1) * 0.1f) * 10) / 10f;
+				long time = start + i * minute + (ran.nextInt(20) == 0 ? ran.nextInt(50) : 0);
+				store.append(a, time, t[a], h[a], p[a]);
+			}
+		}
+		long appendNanos = System.nanoTime() - t0;
+		long readings = (long)areas * perArea;
+		double bytes = store.memoryBytes();
+		System.out.format("%d readings: %.1f M appends/s, %.2f bytes/reading (%.1fx smaller than 20), %.1f MB%n",
+				readings, readings / (appendNanos / 1e3), bytes / readings, 20 * readings / bytes, bytes / 1e6);
+		for(int round=0;round<3;round++){
+			Sum all = new Sum();
+			long s = System.nanoTime();
+			for(int a=0;a<areas;a++)
+				store.scan(a, Long.MIN_VALUE, Long.MAX_VALUE, all);
+			long full = System.nanoTime() - s;
+			Sum day = new Sum();
+			long from = start + (days - 1) * 24 * 60 * minute;
+			s = System.nanoTime();
+			for(int a=0;a<areas;a++)
+				store.scan(a, from, from + 24 * 60 * minute, day);
+			long oneDay = System.nanoTime() - s;
+			System.out.format("round %d: full scan %.1f M readings/s, last-day scan %d readings in %.1f ms (%.0f)%n",
+					round + 1, all.n / (full / 1e3), day.n, oneDay / 1e6, all.sum + day.sum);
+		}
+	}
+}
@@ -0,0 +1,26 @@
+import java.util.Random;
+
+// usage: java WeatherApp [areas] [readings] [readings per ms]
+public class WeatherApp{
+	public static void main(String[] args) throws InterruptedException{
+		int areas = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int readings = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		int rate = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+		WeatherSystem system = new WeatherSystem(areas);
+		Thread dispatcher = system.start(new Display());
+		Random ran = new Random(1);
+		for(int i=0;i<readings;i++){
+			system.getData(ran.nextInt(areas)).track(15 + ran.nextFloat() * 15, 40 + ran.nextFloat() * 50, 1000 + ran.nextFloat() * 30);
+			if(i % rate == 0)
+				Thread.sleep(1);
+			if(i % (rate * 10) == 0)
+				system.forecastTick();
+		}
+		Thread.sleep(100);
+		system.stop();
+		dispatcher.join();
+		System.out.format("%d readings, %d shown%n", readings, system.getDelivered());
+		System.out.format("track to show latency p50 %.1f us, p99 %.1f us%n",
+				system.latencyPercentile(50) / 1e3, system.latencyPercentile(99) / 1e3);
+	}
+}
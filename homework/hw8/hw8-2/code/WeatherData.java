@@ -0,0 +1,69 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class WeatherData{
+	private float temperature;
+	private float humidity;
+	private float pressure;
+	private int area;
+	private long trackedAt;	// System.nanoTime() of the last track()
+	private final AtomicBoolean updated_flag = new AtomicBoolean();
+	private WeatherSystem system;
+	private static final long CLOCK_MILLIS = System.currentTimeMillis();
+	private static final long CLOCK_NANOS = System.nanoTime();
+
+	public WeatherData(int area, WeatherSystem system){
+		this.area = area;
+		this.system = system;
+	}
+	public boolean isUpdated(){
+		return updated_flag.get();
+	}
+	// Records a reading and wakes the system. A reading tracked again before
+	// it was shown is only delivered once, with the latest values.
+	public void track(float t, float h, float p){
+		long since = System.nanoTime();
+		track(now(), t, h, p, since);
+	}
+	// wall-clock milliseconds that never step backwards: the time at startup
+	// plus the System.nanoTime() elapsed since
+	public static long now(){
+		return CLOCK_MILLIS + (System.nanoTime() - CLOCK_NANOS) / 1000000;
+	}
+	// time is the reading's wall-clock time; since is the System.nanoTime()
+	// the reading entered the system, used for the delivery latency. A
+	// reading older than the area's newest is dropped and counted as late.
+	public void track(long time, float t, float h, float p, long since){
+		synchronized(this){
+			if(!system.record(area, time, t, h, p))
+				return;	// older than what the area already has
+			temperature = t;
+			humidity = h;
+			pressure = p;
+			trackedAt = since;
+		}
+		if(updated_flag.compareAndSet(false, true))
+			system.publish(this);
+	}
+	// called by WeatherSystem before the displays read the values
+	boolean clearUpdated(){
+		return updated_flag.getAndSet(false);
+	}
+	public WeatherSystem getSystem(){
+		return system;
+	}
+	public int getArea(){
+		return area;
+	}
+	public synchronized float getTemperature(){
+		return temperature;
+	}
+	public synchronized float getHumidity(){
+		return humidity;
+	}
+	public synchronized float getPressure(){
+		return pressure;
+	}
+	public synchronized long getTrackedAt(){
+		return trackedAt;
+	}
+}
@@ -0,0 +1,165 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+// Delivers changed WeatherData to the displays. track() puts the data on a
+// lock-free queue and unparks the dispatching thread, which sleeps while
+// nothing changes instead of polling every WeatherData.
+public class WeatherSystem{
+	WeatherData[] dataArray;
+	private final ReadingStore history;
+	public static final long STATS_WINDOW = 3600 * 1000;	// one hour, in 12 slices
+	private final WindowedStats[][] statistics;	// per area: temperature, humidity, pressure
+	private final ForecastEngine[] forecasts = new ForecastEngine[3];	// per channel, all areas
+	// latest reading per channel and area since the last forecast tick, NaN
+	// if none; swapped with spare under pendingLock at every tick
+	private float[][] pending;
+	private float[][] spare;
+	private final Object pendingLock = new Object();
+	private final ConcurrentLinkedQueue<WeatherData> changed = new ConcurrentLinkedQueue<WeatherData>();
+	private final CopyOnWriteArrayList<Display> displays = new CopyOnWriteArrayList<Display>();
+	private volatile Thread dispatcher;
+	private volatile boolean running;
+	private long[] latency = new long[4096];	// last track() to show() delays, ns
+	private long delivered;
+	private long late;
+
+	public WeatherSystem(int areas){
+		history = new ReadingStore(areas);
+		statistics = new WindowedStats[areas][3];
+		for(int i=0;i<areas;i++)
+			for(int c=0;c<3;c++)
+				statistics[i][c] = new WindowedStats(STATS_WINDOW, 12);
+		pending = new float[3][areas];
+		spare = new float[3][areas];
+		for(int c=0;c<3;c++){
+			forecasts[c] = new ForecastEngine(areas, 0.5f, 0.2f);
+			Arrays.fill(pending[c], Float.NaN);
+			Arrays.fill(spare[c], Float.NaN);
+		}
+		dataArray = new WeatherData[areas];
+		for(int i=0;i<areas;i++)
+			dataArray[i] = new WeatherData(i, this);
+	}
+	public WeatherData getData(int area){
+		return dataArray[area];
+	}
+	// every tracked reading, by area
+	public ReadingStore getHistory(){
+		return history;
+	}
+	// rolling statistics of an area; channel 0 temperature, 1 humidity, 2 pressure
+	public WindowedStats getStatistics(int area, int channel){
+		return statistics[area][channel];
+	}
+	// Returns false, and keeps nothing, for a reading older than the area's
+	// newest one: the history only grows forward in time, and rewriting the
+	// late reading's time would misplace it.
+	boolean record(int area, long time, float t, float h, float p){
+		if(time < history.lastTime(area)){
+			synchronized(this){
+				late++;
+			}
+			return false;
+		}
+		history.append(area, time, t, h, p);
+		statistics[area][0].add(time, t);
+		statistics[area][1].add(time, h);
+		statistics[area][2].add(time, p);
+		synchronized(pendingLock){
+			pending[0][area] = t;
+			pending[1][area] = h;
+			pending[2][area] = p;
+		}
+		return true;
+	}
+	// readings record() turned away for being late
+	public synchronized long getLate(){
+		return late;
+	}
+	// Feeds the readings since the last tick to the forecasts of every area.
+	// The buffers are swapped under the lock, so a reading lands either in
+	// this tick or in the next one.
+	public synchronized void forecastTick(){
+		float[][] batch;
+		synchronized(pendingLock){
+			batch = pending;
+			pending = spare;
+		}
+		for(int c=0;c<3;c++){
+			forecasts[c].tick(batch[c]);
+			Arrays.fill(batch[c], Float.NaN);
+		}
+		spare = batch;
+	}
+	// channel value of an area, steps forecast ticks ahead; NaN before any reading
+	public float getForecast(int area, int channel, int steps){
+		return forecasts[channel].forecast(area, steps);
+	}
+	void publish(WeatherData data){
+		changed.offer(data);
+		Thread t = dispatcher;
+		if(t != null)
+			LockSupport.unpark(t);
+	}
+	public void addDisplay(Display DP){
+		displays.add(DP);
+	}
+	// Shows changes on DP from the calling thread until stop().
+	public void checkAndDisplay(Display DP){
+		running = true;
+		dispatch(DP);
+	}
+	// running is set by the caller, so a stop() that comes first is kept
+	private void dispatch(Display DP){
+		addDisplay(DP);
+		dispatcher = Thread.currentThread();
+		while(running){
+			WeatherData data = changed.poll();
+			if(data == null){
+				LockSupport.park(this);
+				continue;
+			}
+			if(!data.clearUpdated())
+				continue;
+			long trackedAt = data.getTrackedAt();
+			for(Display d : displays)
+				d.show(data);
+			record(System.nanoTime() - trackedAt);
+		}
+		dispatcher = null;
+	}
+	public Thread start(final Display DP){
+		Thread t = new Thread(new Runnable(){
+			public void run(){
+				dispatch(DP);
+			}
+		}, "weather-dispatch");
+		t.setDaemon(true);
+		running = true;
+		t.start();
+		return t;
+	}
+	public void stop(){
+		running = false;
+		Thread t = dispatcher;
+		if(t != null)
+			LockSupport.unpark(t);
+	}
+	private synchronized void record(long nanos){
+		latency[(int)(delivered++ % latency.length)] = nanos;
+	}
+	public synchronized long getDelivered(){
+		return delivered;
+	}
+	// track() to show() latency percentile (0-100) over the recent deliveries, ns
+	public synchronized long latencyPercentile(double pct){
+		int n = (int)Math.min(delivered, latency.length);
+		if(n == 0)
+			return 0;
+		long[] sorted = Arrays.copyOf(latency, n);
+		Arrays.sort(sorted);
+		return sorted[Math.max(0, Math.min(n-1, (int)Math.ceil(pct / 100 * n) - 1))];
+	}
+}
@@ -0,0 +1,44 @@
+// Statistics of one value over a sliding time window. The window is cut
+// into slices, each a StatsSketch; a reading updates one slice, and a query
+// merges the slices still inside the window. Memory is fixed by the slice
+// count, not by the reading rate.
+public class WindowedStats{
+	private final long sliceMillis;
+	private final StatsSketch[] slices;
+	private final long[] sliceEpoch;	// time / sliceMillis of what each slice holds
+	private final StatsSketch merged = new StatsSketch();
+
+	public WindowedStats(long windowMillis, int sliceCount){
+		sliceMillis = Math.max(1, windowMillis / sliceCount);
+		slices = new StatsSketch[sliceCount];
+		sliceEpoch = new long[sliceCount];
+		for(int i=0;i<sliceCount;i++){
+			slices[i] = new StatsSketch();
+			sliceEpoch[i] = Long.MIN_VALUE;
+		}
+	}
+	public synchronized void add(long time, double value){
+		long epoch = Math.floorDiv(time, sliceMillis);
+		int i = (int)Math.floorMod(epoch, (long)slices.length);
+		if(sliceEpoch[i] != epoch){
+			if(sliceEpoch[i] > epoch)
+				return;	// older than the window
+			slices[i].clear();
+			sliceEpoch[i] = epoch;
+		}
+		slices[i].add(value);
+	}
+	// statistics of the window ending at now; the result is reused by the next call
+	public synchronized StatsSketch window(long now){
+		merged.clear();
+		long epoch = Math.floorDiv(now, sliceMillis);
+		for(int i=0;i<slices.length;i++)
+			if(sliceEpoch[i] <= epoch && sliceEpoch[i] > epoch - slices.length)
+				merged.merge(slices[i]);
+		return merged;
+	}
+	// adds this window's statistics into into, e.g. to combine shards
+	public synchronized void mergeInto(long now, StatsSketch into){
+		into.merge(window(now));
+	}
+}
@@ -0,0 +1,31 @@
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// ForecastKernel on the JDK Vector API, with masks and blends in place of
+// the scalar selects. It needs the incubator module, so it is built only by
+// "make vector" ("make forecast" runs the benchmark with it); ForecastEngine
+// falls back to ScalarForecastKernel when it is not on the class path.
+public class VectorForecastKernel implements ForecastKernel{
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+	private static final ScalarForecastKernel TAIL = new ScalarForecastKernel();
+
+	public void update(float[] level, float[] trend, float[] observed, float alpha, float beta, int from, int to){
+		int i = from;
+		for(int bound=from+SPECIES.loopBound(to-from);i<bound;i+=SPECIES.length()){
+			FloatVector x = FloatVector.fromArray(SPECIES, observed, i);
+			FloatVector l = FloatVector.fromArray(SPECIES, level, i);
+			FloatVector t = FloatVector.fromArray(SPECIES, trend, i);
+			FloatVector predicted = l.add(t);
+			FloatVector smoothed = x.mul(alpha).add(predicted.mul(1 - alpha));
+			FloatVector slope = smoothed.sub(l).mul(beta).add(t.mul(1 - beta));
+			VectorMask<Float> has = x.compare(VectorOperators.EQ, x);
+			VectorMask<Float> started = l.compare(VectorOperators.EQ, l);
+			// no reading: predicted; first reading: x; otherwise smoothed
+			predicted.blend(x.blend(smoothed, started), has).intoArray(level, i);
+			t.blend(slope, has.and(started)).intoArray(trend, i);
+		}
+		TAIL.update(level, trend, observed, alpha, beta, i, to);
+	}
+}
@@ -0,0 +1,60 @@
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Reads a corpus of files in mixed encodings through FormatRegistry, on one
+// thread and then on every core, and checks the text against what was written.
+// usage: java DecodeBench [files] [chars per file]
+public class DecodeBench{
+    public static void main(String[] args) throws Exception{
+        int files = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int chars = args.length > 1 ? Integer.parseInt(args[1]) : 4 << 20;
+        Path dir = Files.createTempDirectory("decode");
+        String[] paths = new String[files];
+        String[] expected = new String[files];
+        Random ran = new Random(1);
+        String letters = "abcdefghij \n\u00e9\u00fc\u4e2d\u6587\ud83d\ude00";
+        for(int f=0;f<files;f++){
+            boolean latin = f % 5 == 4;
+            StringBuilder sb = new StringBuilder(chars);
+            while(sb.length() < chars){
+                int k = ran.nextInt(latin ? 13 : letters.length() - 1);
+                sb.append(letters.charAt(k));
+                if(Character.isHighSurrogate(letters.charAt(k)))
+                    sb.append(letters.charAt(k + 1));
+            }
+            expected[f] = sb.toString();
+            Charset cs = latin ? StandardCharsets.ISO_8859_1 : f % 5 == 0 || f % 5 == 1 ? StandardCharsets.UTF_8 : f % 5 == 2 ? StandardCharsets.UTF_16LE : StandardCharsets.UTF_16BE;
+            byte[] bom = f % 5 == 1 ? new byte[]{ (byte)0xEF, (byte)0xBB, (byte)0xBF } : f % 5 == 3 ? new byte[]{ (byte)0xFE, (byte)0xFF } : new byte[0];
+            Path p = dir.resolve("f" + f + ".txt");
+            byte[] body = expected[f].getBytes(cs);
+            byte[] all = new byte[bom.length + body.length];
+            System.arraycopy(bom, 0, all, 0, bom.length);
+            System.arraycopy(body, 0, all, bom.length, body.length);
+            Files.write(p, all);
+            paths[f] = p.toString();
+        }
+        final FormatRegistry registry = FormatRegistry.standard();
+        int cores = Runtime.getRuntime().availableProcessors();
+        try{
+            for(int threads : new int[]{ 1, cores }){
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                long t = System.nanoTime();
+                CharSequence[] text = pool.submit(() -> registry.readAll(paths)).get();
+                long nanos = System.nanoTime() - t;
+                pool.shutdown();
+                for(int f=0;f<files;f++)
+                    if(!expected[f].contentEquals(text[f]))
+                        throw new AssertionError("file " + f + " decoded wrong");
+                System.out.format("%2d threads: %d files in %.1f ms%n", threads, files, nanos / 1e6);
+            }
+        }finally{
+            for(String p : paths)
+                Files.deleteIfExists(Path.of(p));
+            Files.delete(dir);
+        }
+    }
+}
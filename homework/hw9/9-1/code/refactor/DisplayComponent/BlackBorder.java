@@ -1,15 +1,34 @@
 public class BlackBorder implements DisplayComponent{
     private int blackBorderSize = 0; //defalut as not show
+    private Region bounds = Region.EMPTY;
+    private boolean dirty = true;
     public BlackBorder(int size){
         blackBorderSize = size;
     }
     public BlackBorder(){}
     public void setBlackBorder(int size){
-        blackBorderSize = size;
+        if(size != blackBorderSize){
+            blackBorderSize = size;
+            dirty = true;
+        }
+    }
+    public void setBounds(Region _bounds){
+        bounds = _bounds;
+        dirty = true;
+    }
+    public Region getBounds(){
+        return bounds;
+    }
+    public boolean isDirty(){
+        return dirty;
+    }
+    public void invalidate(){
+        dirty = true;
     }
     public void show(){
         if(blackBorderSize > 0){ 
             // show scrollbar
         }
+        dirty = false;
     }
 }
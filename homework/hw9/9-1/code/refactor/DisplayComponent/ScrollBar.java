@@ -1,5 +1,32 @@
 public class ScrollBar implements DisplayComponent{
+    private Region bounds = Region.EMPTY;
+    private int position;    // first line shown
+    private boolean dirty = true;
+    public ScrollBar(){}
+    public ScrollBar(Region _bounds){
+        bounds = _bounds;
+    }
+    public void setBounds(Region _bounds){
+        bounds = _bounds;
+        dirty = true;
+    }
+    public void setPosition(int line){
+        if(line != position){
+            position = line;
+            dirty = true;
+        }
+    }
+    public Region getBounds(){
+        return bounds;
+    }
+    public boolean isDirty(){
+        return dirty;
+    }
+    public void invalidate(){
+        dirty = true;
+    }
     public void show(){
             // show scrollbar
+        dirty = false;
     }
 }
@@ -0,0 +1,135 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+// Text in a charset, optionally after a byte order mark. A large file is cut
+// into chunks at places no character spans (the start of a UTF-8 sequence,
+// an even offset outside a UTF-16 surrogate pair, any byte of a single-byte
+// charset), the chunks are decoded in parallel and then joined. Other
+// charsets (GBK, Shift_JIS, UTF-32, ...) are decoded in one piece.
+public class ChunkedFormat implements Format{
+    static final int CHUNK = 4 << 20;
+    private final Charset charset;
+    private final byte[] bom;
+    private final boolean splittable;    // boundary() knows where characters start
+
+    public ChunkedFormat(Charset _charset){
+        this(_charset, new byte[0]);
+    }
+    public ChunkedFormat(Charset _charset, byte[] _bom){
+        charset = _charset;
+        bom = _bom;
+        splittable = charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.UTF_16LE)
+            || charset.equals(StandardCharsets.UTF_16BE) || singleByte(charset);
+    }
+    private static boolean singleByte(Charset c){
+        return c.canEncode() && c.newEncoder().maxBytesPerChar() == 1;
+    }
+    public Charset getCharset(){
+        return charset;
+    }
+    public String read(String path){
+        try(FileChannel ch = FileChannel.open(Paths.get(path), StandardOpenOption.READ)){
+            long size = ch.size();
+            long from = startsWithBom(ch) ? bom.length : 0;
+            int n = splittable ? (int)Math.max(1, (size - from + CHUNK - 1) / CHUNK) : 1;
+            final long[] cut = new long[n + 1];
+            cut[0] = from;
+            cut[n] = size;
+            for(int i=1;i<n;i++)
+                cut[i] = boundary(ch, from, from + (long)i * CHUNK);
+            CharBuffer[] parts = IntStream.range(0, n).parallel().mapToObj(i -> decode(ch, cut[i], cut[i+1])).toArray(CharBuffer[]::new);
+            int length = 0;
+            for(CharBuffer part : parts)
+                length = Math.addExact(length, part.remaining());
+            StringBuilder sb = new StringBuilder(length);
+            for(CharBuffer part : parts)
+                sb.append(part);
+            return sb.toString();
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+    private boolean startsWithBom(FileChannel ch) throws IOException{
+        if(bom.length == 0)
+            return false;
+        ByteBuffer head = ByteBuffer.allocate(bom.length);
+        while(head.hasRemaining() && ch.read(head, head.position()) > 0);
+        return !head.hasRemaining() && ByteBuffer.wrap(bom).equals(head.flip());
+    }
+    // pos moved back to the nearest place a character starts, text starting at from
+    private long boundary(FileChannel ch, long from, long pos) throws IOException{
+        ByteBuffer b = ByteBuffer.allocate(4);
+        if(charset.equals(StandardCharsets.UTF_8)){
+            for(int i=0;i<3;i++){
+                b.clear().limit(1);
+                ch.read(b, pos);
+                if((b.get(0) & 0xC0) != 0x80)
+                    break;
+                pos--;
+            }
+            return pos;
+        }
+        if(charset.equals(StandardCharsets.UTF_16LE) || charset.equals(StandardCharsets.UTF_16BE)){
+            pos -= (pos - from) & 1;
+            b.limit(2);
+            ch.read(b, pos);
+            int unit = charset.equals(StandardCharsets.UTF_16LE) ? (b.get(1) & 0xFF) << 8 | b.get(0) & 0xFF : (b.get(0) & 0xFF) << 8 | b.get(1) & 0xFF;
+            return unit >= 0xDC00 && unit <= 0xDFFF ? pos - 2 : pos;
+        }
+        return pos;    // single-byte charsets
+    }
+    private CharBuffer decode(FileChannel ch, long from, long to){
+        try{
+            return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(ch.map(FileChannel.MapMode.READ_ONLY, from, to - from));
+        }catch(CharacterCodingException e){
+            throw new IllegalStateException(e);    // cannot happen when replacing
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+    public void write(String path, CharSequence text){
+        save(path, text, charset, bom);
+    }
+    // text may still be backed by the mapping of path, so it is written to a
+    // temporary file that then replaces path
+    static void save(String path, CharSequence text, Charset charset, byte[] bom){
+        Path target = Paths.get(path).toAbsolutePath();
+        try{
+            Path tmp = Files.createTempFile(target.getParent(), ".save", ".tmp");
+            try(OutputStream os = Files.newOutputStream(tmp)){
+                os.write(bom);
+                Writer out = new OutputStreamWriter(os, charset.newEncoder());
+                if(text instanceof TextBuffer)
+                    ((TextBuffer)text).writeTo(out);
+                else
+                    out.append(text);
+                out.flush();
+            }catch(IOException e){
+                Files.deleteIfExists(tmp);
+                throw e;
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Picks the Format of a file from its first bytes: a registered magic prefix
+// (byte order marks in standard()), otherwise a guess between UTF-16 without
+// a mark, UTF-8 and ISO-8859-1. As a Format itself it reads and writes each
+// path in the format detected for it.
+public class FormatRegistry implements Format{
+    static final int SNIFF = 4096;
+    private final ArrayList<byte[]> magic = new ArrayList<byte[]>();
+    private final ArrayList<Format> formats = new ArrayList<Format>();
+
+    public static FormatRegistry standard(){
+        FormatRegistry r = new FormatRegistry();
+        byte[] utf8 = { (byte)0xEF, (byte)0xBB, (byte)0xBF };
+        byte[] utf16le = { (byte)0xFF, (byte)0xFE };
+        byte[] utf16be = { (byte)0xFE, (byte)0xFF };
+        r.register(utf8, new ChunkedFormat(StandardCharsets.UTF_8, utf8));
+        r.register(utf16le, new ChunkedFormat(StandardCharsets.UTF_16LE, utf16le));
+        r.register(utf16be, new ChunkedFormat(StandardCharsets.UTF_16BE, utf16be));
+        return r;
+    }
+    // a longer prefix wins over a shorter one it starts with
+    public void register(byte[] prefix, Format f){
+        int i = 0;
+        while(i < magic.size() && magic.get(i).length >= prefix.length)
+            i++;
+        magic.add(i, prefix.clone());
+        formats.add(i, f);
+    }
+    public Format detect(String path){
+        byte[] head;
+        try(FileChannel ch = FileChannel.open(Paths.get(path), StandardOpenOption.READ)){
+            ByteBuffer b = ByteBuffer.allocate((int)Math.min(SNIFF, ch.size()));
+            while(b.hasRemaining() && ch.read(b, b.position()) > 0);
+            head = Arrays.copyOf(b.array(), b.position());
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+        for(int i=0;i<magic.size();i++){
+            byte[] m = magic.get(i);
+            if(head.length >= m.length && Arrays.equals(head, 0, m.length, m, 0, m.length))
+                return formats.get(i);
+        }
+        return guess(head);
+    }
+    private static Format guess(byte[] head){
+        // text in UTF-16 has a zero byte in most ASCII characters
+        int evenZero = 0, oddZero = 0;
+        for(int i=0;i<head.length;i++)
+            if(head[i] == 0){
+                if((i & 1) == 0)
+                    evenZero++;
+                else
+                    oddZero++;
+            }
+        int units = head.length / 2;
+        if(units > 0 && oddZero > units / 2 && evenZero < units / 8)
+            return new ChunkedFormat(StandardCharsets.UTF_16LE);
+        if(units > 0 && evenZero > units / 2 && oddZero < units / 8)
+            return new ChunkedFormat(StandardCharsets.UTF_16BE);
+        return validUtf8(head) ? new ChunkedFormat(StandardCharsets.UTF_8) : new ChunkedFormat(StandardCharsets.ISO_8859_1);
+    }
+    // a sequence cut off by the end of head still counts as valid
+    private static boolean validUtf8(byte[] b){
+        for(int i=0;i<b.length;){
+            int c = b[i] & 0xFF;
+            int need = c < 0x80 ? 0 : (c & 0xE0) == 0xC0 ? 1 : (c & 0xF0) == 0xE0 ? 2 : (c & 0xF8) == 0xF0 ? 3 : -1;
+            if(need < 0)
+                return false;
+            for(int k=1;k<=need && i+k<b.length;k++)
+                if((b[i+k] & 0xC0) != 0x80)
+                    return false;
+            i += need + 1;
+        }
+        return true;
+    }
+    public CharSequence read(String path){
+        return detect(path).read(path);
+    }
+    // an existing file keeps its format; a new one is UTF-8
+    public void write(String path, CharSequence text){
+        Format f = Files.exists(Paths.get(path)) ? detect(path) : new ChunkedFormat(StandardCharsets.UTF_8);
+        f.write(path, text);
+    }
+    // every file, in parallel with each other and with their own chunks
+    public CharSequence[] readAll(final String[] paths){
+        return IntStream.range(0, paths.length).parallel().mapToObj(i -> read(paths[i])).toArray(CharSequence[]::new);
+    }
+}
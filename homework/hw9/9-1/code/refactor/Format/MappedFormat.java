@@ -0,0 +1,11 @@
+import java.nio.charset.StandardCharsets;
+
+// UTF-8 text read through a memory map, decoded only where it is looked at
+public class MappedFormat implements Format{
+    public CharSequence read(String path){
+        return new MappedText(path);
+    }
+    public void write(String path, CharSequence text){
+        ChunkedFormat.save(path, text, StandardCharsets.UTF_8, new byte[0]);
+    }
+}
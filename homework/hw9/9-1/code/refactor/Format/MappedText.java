@@ -0,0 +1,195 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// A UTF-8 file seen as a CharSequence. The file is memory-mapped and cut into
+// pages of about PAGE bytes that never split a code point; a page is decoded
+// only when one of its chars is asked for, and a few decoded pages are cached.
+// The char offset of each page is found by counting, page by page, as far as
+// the highest index asked for, so opening costs nothing but the mapping.
+public class MappedText implements CharSequence{
+    static final int PAGE = 1 << 16;
+    private static final long REGION = 1L << 30;
+    private static final int CACHED = 4;
+    private final MappedByteBuffer[] regions;    // region r maps bytes from r * REGION, overlapping the next by a page
+    private final long size;
+    private final int pages;
+    private long[] pageChar = new long[16];    // char offset of each counted page, plus the end of the last
+    private int counted;
+    private final int[] cachedPage = new int[CACHED];
+    private final char[][] cachedChars = new char[CACHED][];
+    private int nextSlot;
+
+    public MappedText(String path){
+        try(FileChannel ch = FileChannel.open(Paths.get(path), StandardOpenOption.READ)){
+            size = ch.size();
+            regions = new MappedByteBuffer[(int)((size + REGION - 1) / REGION)];
+            for(int r=0;r<regions.length;r++){
+                long from = r * REGION;
+                regions[r] = ch.map(FileChannel.MapMode.READ_ONLY, from, Math.min(size - from, REGION + PAGE));
+            }
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+        pages = (int)((size + PAGE - 1) / PAGE);
+        Arrays.fill(cachedPage, -1);
+    }
+    public long byteLength(){
+        return size;
+    }
+    private byte byteAt(long pos){
+        int r = (int)(pos / REGION);
+        return regions[r].get((int)(pos - r * REGION));
+    }
+    // first byte of page p, moved back to the start of the code point it falls in
+    private long pageStart(int p){
+        if(p >= pages)
+            return size;
+        long pos = (long)p * PAGE;
+        for(int i=0;i<3 && pos > 0 && (byteAt(pos) & 0xC0) == 0x80;i++)
+            pos--;
+        return pos;
+    }
+    // decodes page p into out, or only counts its chars when out is null;
+    // a malformed byte becomes one U+FFFD
+    private int decode(int p, char[] out){
+        long start = pageStart(p), end = pageStart(p + 1);
+        int r = (int)(start / REGION);    // the overlap holds the whole page
+        MappedByteBuffer buf = regions[r];
+        int n = 0;
+        for(long pos = start;pos < end;){
+            int at = (int)(pos - r * REGION);
+            int b = buf.get(at) & 0xFF;
+            int need = b < 0x80 ? 0 : (b & 0xE0) == 0xC0 ? 1 : (b & 0xF0) == 0xE0 ? 2 : (b & 0xF8) == 0xF0 ? 3 : -1;
+            int cp = need == 0 ? b : need == 1 ? b & 0x1F : need == 2 ? b & 0x0F : b & 0x07;
+            boolean ok = need >= 0 && pos + need < end;
+            for(int i=1;ok && i<=need;i++){
+                int c = buf.get(at + i) & 0xFF;
+                ok = (c & 0xC0) == 0x80;
+                cp = cp << 6 | c & 0x3F;
+            }
+            if(!ok){
+                if(out != null)
+                    out[n] = '\uFFFD';
+                n++;
+                pos++;
+                continue;
+            }
+            if(cp >= 0x10000){
+                if(out != null){
+                    out[n] = Character.highSurrogate(cp);
+                    out[n+1] = Character.lowSurrogate(cp);
+                }
+                n += 2;
+            }else{
+                if(out != null)
+                    out[n] = (char)cp;
+                n++;
+            }
+            pos += need + 1;
+        }
+        return n;
+    }
+    // counts pages until the one holding char index, or all of them
+    private void countTo(long index){
+        while(counted < pages && pageChar[counted] <= index){
+            if(counted + 1 >= pageChar.length)
+                pageChar = Arrays.copyOf(pageChar, pageChar.length * 2);
+            pageChar[counted+1] = pageChar[counted] + decode(counted, null);
+            counted++;
+        }
+    }
+    private char[] page(int p){
+        for(int i=0;i<CACHED;i++)
+            if(cachedPage[i] == p)
+                return cachedChars[i];
+        char[] chars = new char[(int)(pageChar[p+1] - pageChar[p])];
+        decode(p, chars);
+        int slot = nextSlot;
+        nextSlot = (nextSlot + 1) % CACHED;
+        cachedPage[slot] = p;
+        cachedChars[slot] = chars;
+        return chars;
+    }
+    // page holding char index, -1 past the end
+    private int pageOf(long index){
+        countTo(index);
+        if(index >= pageChar[counted])
+            return -1;
+        int p = Arrays.binarySearch(pageChar, 0, counted + 1, index);
+        if(p < 0)
+            p = -p - 2;
+        while(pageChar[p+1] == pageChar[p])    // skip empty pages
+            p++;
+        return p;
+    }
+    // chars in the whole text; the first call counts the whole file
+    public synchronized long longLength(){
+        countTo(Long.MAX_VALUE);
+        return pageChar[counted];
+    }
+    // longLength(), clamped to Integer.MAX_VALUE
+    public synchronized int length(){
+        return (int)Math.min(Integer.MAX_VALUE, longLength());
+    }
+    public synchronized char charAt(int index){
+        if(index < 0)
+            throw new IndexOutOfBoundsException(index);
+        int p = pageOf(index);
+        if(p < 0)
+            throw new IndexOutOfBoundsException(index);
+        return page(p)[(int)(index - pageChar[p])];
+    }
+    // copies chars from index up to the end of its page into dst, at most
+    // dst.length; returns how many, 0 at the end of the text
+    public synchronized int read(int index, char[] dst){
+        int p = pageOf(index);
+        if(p < 0)
+            return 0;
+        char[] chars = page(p);
+        int from = (int)(index - pageChar[p]);
+        int n = Math.min(dst.length, chars.length - from);
+        System.arraycopy(chars, from, dst, 0, n);
+        return n;
+    }
+    public synchronized CharSequence subSequence(int start, int end){
+        countTo(end - 1L);
+        if(start < 0 || end < start || end > pageChar[counted])
+            throw new IndexOutOfBoundsException(start + ", " + end);
+        return new Slice(this, start, end);
+    }
+    public String toString(){
+        return new StringBuilder(this).toString();
+    }
+
+    // a range of another CharSequence, without copying
+    private static class Slice implements CharSequence{
+        private final CharSequence base;
+        private final int start, end;
+        Slice(CharSequence base, int start, int end){
+            this.base = base;
+            this.start = start;
+            this.end = end;
+        }
+        public int length(){
+            return end - start;
+        }
+        public char charAt(int index){
+            if(index < 0 || index >= end - start)
+                throw new IndexOutOfBoundsException(index);
+            return base.charAt(start + index);
+        }
+        public CharSequence subSequence(int s, int e){
+            if(s < 0 || e < s || e > end - start)
+                throw new IndexOutOfBoundsException(s + ", " + e);
+            return new Slice(base, start + s, start + e);
+        }
+        public String toString(){
+            return new StringBuilder(this).toString();
+        }
+    }
+}
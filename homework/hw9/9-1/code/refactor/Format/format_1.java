@@ -3,4 +3,7 @@ public class format_1 implements Format{
         //read something
         return null;
     }
+    public void write(String path, CharSequence text){
+        //write something
+    }
 }
@@ -0,0 +1,186 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Char offset of the start of every line of a text. The offsets are kept in
+// an int array, filled by a background thread that scans the text once, and
+// saved next to the source as <path>.lidx together with the source's size and
+// modification time; a later open of an unchanged file maps that file instead
+// of scanning. lineStart() waits only until the line asked for is known.
+public class LineIndex{
+    private static final int MAGIC = 0x4c494458;    // "LIDX"
+    private static final int HEADER = 4 + 8 + 8 + 4;
+    private static final int BATCH = 4096;
+    private IntBuffer offsets;
+    private int lines;
+    private boolean complete;
+    private Throwable failure;    // why the scan stopped early, rethrown to waiters
+
+    private LineIndex(){
+    }
+    // the index of text, the contents of path (may be null for no sidecar)
+    public static LineIndex open(final String path, final CharSequence text){
+        final LineIndex index = new LineIndex();
+        if(path != null && index.load(Paths.get(path)))
+            return index;
+        index.offsets = IntBuffer.allocate(BATCH);
+        // the file as text was read from it; a change during the scan then
+        // leaves a sidecar that the next open rejects
+        final long[] stamp = path == null ? null : stamp(Paths.get(path));
+        Thread t = new Thread(new Runnable(){
+            public void run(){
+                try{
+                    index.build(text);
+                }catch(RuntimeException | Error e){
+                    index.fail(e);
+                    return;
+                }
+                if(stamp != null)
+                    index.save(Paths.get(path), stamp[0], stamp[1]);
+            }
+        }, "line-index");
+        t.setDaemon(true);
+        t.start();
+        return index;
+    }
+    public static Path sidecar(Path source){
+        return source.resolveSibling(source.getFileName() + ".lidx");
+    }
+    // size and modification time of source, null if it cannot be read
+    private static long[] stamp(Path source){
+        try{
+            return new long[]{ Files.size(source), Files.getLastModifiedTime(source).toMillis() };
+        }catch(IOException e){
+            return null;
+        }
+    }
+    private boolean load(Path source){
+        Path side = sidecar(source);
+        try(FileChannel ch = FileChannel.open(side, StandardOpenOption.READ)){
+            if(ch.size() < HEADER)
+                return false;
+            ByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()).order(ByteOrder.LITTLE_ENDIAN);
+            if(map.getInt() != MAGIC || map.getLong() != Files.size(source)
+                    || map.getLong() != Files.getLastModifiedTime(source).toMillis())
+                return false;
+            int n = map.getInt();
+            if(ch.size() != HEADER + 4L * n)
+                return false;
+            offsets = map.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            lines = n;
+            complete = true;
+            return true;
+        }catch(IOException e){
+            return false;
+        }
+    }
+    private void build(CharSequence text){
+        int[] batch = new int[BATCH];
+        int n = 0;
+        batch[n++] = 0;
+        int pos = 0;
+        if(text instanceof MappedText){
+            MappedText mapped = (MappedText)text;
+            char[] buf = new char[1 << 16];
+            for(int got;(got = mapped.read(pos, buf)) > 0;pos += got){
+                // offsets are ints; a longer text fails rather than wrap
+                if(got > Integer.MAX_VALUE - pos)
+                    throw new IllegalStateException("text longer than Integer.MAX_VALUE chars");
+                for(int i=0;i<got;i++)
+                    if(buf[i] == '\n'){
+                        batch[n++] = pos + i + 1;
+                        if(n == BATCH){
+                            publish(batch, n, false);
+                            n = 0;
+                        }
+                    }
+            }
+        }else{
+            for(int len=text.length();pos<len;pos++)
+                if(text.charAt(pos) == '\n'){
+                    batch[n++] = pos + 1;
+                    if(n == BATCH){
+                        publish(batch, n, false);
+                        n = 0;
+                    }
+                }
+        }
+        publish(batch, n, true);
+    }
+    private synchronized void publish(int[] batch, int n, boolean done){
+        if(offsets.capacity() < lines + n){
+            IntBuffer grown = IntBuffer.allocate(Math.max(lines + n, offsets.capacity() * 2));
+            grown.put(Arrays.copyOf(offsets.array(), lines));
+            offsets = grown;
+        }
+        offsets.position(lines);
+        offsets.put(batch, 0, n);
+        lines += n;
+        complete = done;
+        notifyAll();
+    }
+    private synchronized void fail(Throwable e){
+        failure = e;
+        notifyAll();
+    }
+    private void checkFailure(){
+        if(failure != null)
+            throw new IllegalStateException("line index scan failed", failure);
+    }
+    // the sidecar is only a cache; if it cannot be written the next open scans again
+    private void save(Path source, long size, long modified){
+        Path side = sidecar(source);
+        Path tmp = null;
+        try{
+            tmp = Files.createTempFile(side.toAbsolutePath().getParent(), ".lidx", ".tmp");
+            try(FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)){
+                ByteBuffer buf = ByteBuffer.allocate(HEADER + 4 * lines).order(ByteOrder.LITTLE_ENDIAN);
+                buf.putInt(MAGIC).putLong(size).putLong(modified).putInt(lines);
+                synchronized(this){
+                    buf.asIntBuffer().put(offsets.array(), 0, lines);
+                }
+                buf.clear();
+                while(buf.hasRemaining())
+                    ch.write(buf);
+            }
+            Files.move(tmp, side, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch(IOException e){
+            System.err.println("line index not saved for " + source + ": " + e);
+            try{
+                if(tmp != null)
+                    Files.deleteIfExists(tmp);
+            }catch(IOException ignored){
+            }
+        }
+    }
+    public synchronized boolean isComplete(){
+        return complete;
+    }
+    // waits for the whole text to be scanned; throws IllegalStateException
+    // if the scan failed
+    public synchronized int lineCount() throws InterruptedException{
+        while(!complete && failure == null)
+            wait();
+        checkFailure();
+        return lines;
+    }
+    // char offset of line (from 0); waits until the scan gets there, and
+    // returns -1 if the text has fewer lines. A line past where a failed scan
+    // stopped throws IllegalStateException.
+    public synchronized int lineStart(int line) throws InterruptedException{
+        while(line >= lines && !complete && failure == null)
+            wait();
+        if(line < lines)
+            return offsets.get(line);
+        checkFailure();
+        return -1;
+    }
+}
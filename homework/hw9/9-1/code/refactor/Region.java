@@ -0,0 +1,31 @@
+// An immutable screen rectangle, in character cells
+public class Region{
+    public static final Region EMPTY = new Region(0, 0, 0, 0);
+    public final int x, y, width, height;
+    public Region(int _x, int _y, int _width, int _height){
+        x = _x;
+        y = _y;
+        width = Math.max(0, _width);
+        height = Math.max(0, _height);
+    }
+    public boolean isEmpty(){
+        return width == 0 || height == 0;
+    }
+    public boolean intersects(Region r){
+        return !isEmpty() && !r.isEmpty()
+            && x < r.x + r.width && r.x < x + width
+            && y < r.y + r.height && r.y < y + height;
+    }
+    // smallest region covering both
+    public Region union(Region r){
+        if(r.isEmpty())
+            return this;
+        if(isEmpty())
+            return r;
+        int x0 = Math.min(x, r.x), y0 = Math.min(y, r.y);
+        return new Region(x0, y0, Math.max(x + width, r.x + r.width) - x0, Math.max(y + height, r.y + r.height) - y0);
+    }
+    public String toString(){
+        return "(" + x + ", " + y + ", " + width + "x" + height + ")";
+    }
+}
@@ -0,0 +1,62 @@
+import java.util.Random;
+
+// Random small edits on a large document: String, StringBuilder and TextBuffer.
+// usage: java RopeBench [document chars] [edits]
+public class RopeBench{
+    static String document(int n){
+        StringBuilder sb = new StringBuilder(n);
+        Random ran = new Random(1);
+        while(sb.length() < n)
+            sb.append(ran.nextInt(8) == 0 ? '\n' : (char)('a' + ran.nextInt(26)));
+        return sb.toString();
+    }
+    public static void main(String[] args){
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 8 << 20;
+        int edits = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        String doc = document(n);
+        // String copies on every edit, so it gets far fewer of them
+        int stringEdits = Math.max(1, edits / 100);
+        long t = System.nanoTime();
+        String s = doc;
+        Random ran = new Random(2);
+        for(int i=0;i<stringEdits;i++){
+            int p = ran.nextInt(s.length());
+            s = i % 2 == 0 ? s.substring(0, p) + "edit" + s.substring(p) : s.substring(0, p) + s.substring(Math.min(s.length(), p + 4));
+        }
+        report("String", stringEdits, System.nanoTime() - t);
+
+        t = System.nanoTime();
+        StringBuilder sb = new StringBuilder(doc);
+        ran = new Random(2);
+        for(int i=0;i<edits;i++){
+            int p = ran.nextInt(sb.length());
+            if(i % 2 == 0)
+                sb.insert(p, "edit");
+            else
+                sb.delete(p, Math.min(sb.length(), p + 4));
+        }
+        report("StringBuilder", edits, System.nanoTime() - t);
+
+        t = System.nanoTime();
+        TextBuffer b = new TextBuffer(doc);
+        TextBuffer first = b;
+        ran = new Random(2);
+        for(int i=0;i<edits;i++){
+            int p = ran.nextInt(b.length());
+            b = i % 2 == 0 ? b.insert(p, "edit") : b.delete(p, Math.min(b.length(), p + 4));
+        }
+        report("TextBuffer", edits, System.nanoTime() - t);
+        System.out.format("  %d pieces, first snapshot still %d chars%n", b.pieceCount(), first.length());
+
+        t = System.nanoTime();
+        long sum = 0;
+        for(int i=0;i<edits;i++)
+            sum += b.charAt(ran.nextInt(b.length()));
+        report("TextBuffer charAt", edits, System.nanoTime() - t);
+        if(!b.toString().equals(sb.toString()))
+            throw new AssertionError("TextBuffer and StringBuilder differ " + sum);
+    }
+    static void report(String name, int ops, long nanos){
+        System.out.format("%-18s %8d ops %10.2f us/op%n", name, ops, nanos / 1e3 / ops);
+    }
+}
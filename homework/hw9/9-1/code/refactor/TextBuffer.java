@@ -0,0 +1,182 @@
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Immutable text held as a tree of pieces, each a range of some source
+// CharSequence: the text from Format.read or a String that was inserted.
+// The tree is a treap ordered by position, so insert, delete and charAt
+// are O(log n), and an edit copies only the path it changes; every older
+// TextBuffer stays valid and is a free snapshot for undo.
+public class TextBuffer implements CharSequence{
+    private static final TextBuffer EMPTY = new TextBuffer(null, false);
+    private static final int CHUNK = 8192;
+    private final CharSequence source;    // text of the single root piece, until it is built
+    private Node root;
+    private boolean truncated;    // the source is longer than an int can index
+    private volatile boolean built;
+
+    private static final class Node{
+        final CharSequence src;
+        final int start, len;
+        final int priority;
+        final Node left, right;
+        final int size;    // chars in this subtree
+        final int pieces;
+        Node(Node left, CharSequence src, int start, int len, int priority, Node right){
+            this.left = left;
+            this.src = src;
+            this.start = start;
+            this.len = len;
+            this.priority = priority;
+            this.right = right;
+            size = size(left) + len + size(right);
+            pieces = pieces(left) + 1 + pieces(right);
+        }
+    }
+    private static int size(Node n){
+        return n == null ? 0 : n.size;
+    }
+    private static int pieces(Node n){
+        return n == null ? 0 : n.pieces;
+    }
+    private static Node leaf(CharSequence src, int start, int len){
+        return new Node(null, src, start, len, ThreadLocalRandom.current().nextInt(), null);
+    }
+
+    private TextBuffer(Node root, boolean truncated){
+        source = null;
+        this.root = root;
+        this.truncated = truncated;
+        built = true;
+    }
+    // The text is referenced, not copied, and not measured until something
+    // needs the length: opening a MappedText decodes nothing.
+    public TextBuffer(CharSequence text){
+        source = text;
+    }
+    private Node root(){
+        if(!built)
+            synchronized(this){
+                if(!built){
+                    int len = source.length();
+                    root = len == 0 ? null : leaf(source, 0, len);
+                    truncated = source instanceof MappedText && ((MappedText)source).longLength() > len;
+                    built = true;
+                }
+            }
+        return root;
+    }
+    // true if the text had more than Integer.MAX_VALUE chars and this buffer
+    // holds only the first of them
+    public boolean isTruncated(){
+        root();
+        return truncated;
+    }
+    public static TextBuffer empty(){
+        return EMPTY;
+    }
+
+    private static Node merge(Node a, Node b){
+        if(a == null)
+            return b;
+        if(b == null)
+            return a;
+        if(a.priority >= b.priority)
+            return new Node(a.left, a.src, a.start, a.len, a.priority, merge(a.right, b));
+        return new Node(merge(a, b.left), b.src, b.start, b.len, b.priority, b.right);
+    }
+    // the first pos chars of n and the rest
+    private static Node[] split(Node n, int pos){
+        if(n == null)
+            return new Node[2];
+        int l = size(n.left);
+        if(pos <= l){
+            Node[] s = split(n.left, pos);
+            s[1] = new Node(s[1], n.src, n.start, n.len, n.priority, n.right);
+            return s;
+        }
+        if(pos >= l + n.len){
+            Node[] s = split(n.right, pos - l - n.len);
+            s[0] = new Node(n.left, n.src, n.start, n.len, n.priority, s[0]);
+            return s;
+        }
+        // cut the piece itself; both halves keep its priority
+        int k = pos - l;
+        return new Node[]{
+            new Node(n.left, n.src, n.start, k, n.priority, null),
+            new Node(null, n.src, n.start + k, n.len - k, n.priority, n.right) };
+    }
+
+    public TextBuffer insert(int pos, CharSequence text){
+        if(pos < 0 || pos > length())
+            throw new IndexOutOfBoundsException(pos);
+        if(text.length() == 0)
+            return this;
+        // inserted text is copied so later changes to a builder cannot leak in
+        Node[] s = split(root(), pos);
+        return new TextBuffer(merge(merge(s[0], leaf(text.toString(), 0, text.length())), s[1]), truncated);
+    }
+    // removes [from, to)
+    public TextBuffer delete(int from, int to){
+        if(from < 0 || to < from || to > length())
+            throw new IndexOutOfBoundsException(from + ", " + to);
+        if(from == to)
+            return this;
+        Node[] a = split(root(), to);
+        Node[] b = split(a[0], from);
+        return new TextBuffer(merge(b[0], a[1]), truncated);
+    }
+    public TextBuffer append(CharSequence text){
+        return insert(length(), text);
+    }
+    public int length(){
+        return size(root());
+    }
+    public int pieceCount(){
+        return pieces(root());
+    }
+    public char charAt(int index){
+        if(!built)
+            return source.charAt(index);
+        if(index < 0 || index >= length())
+            throw new IndexOutOfBoundsException(index);
+        Node n = root;
+        while(true){
+            int l = size(n.left);
+            if(index < l)
+                n = n.left;
+            else if(index < l + n.len)
+                return n.src.charAt(n.start + index - l);
+            else{
+                index -= l + n.len;
+                n = n.right;
+            }
+        }
+    }
+    public CharSequence subSequence(int start, int end){
+        if(start < 0 || end < start || end > length())
+            throw new IndexOutOfBoundsException(start + ", " + end);
+        Node[] a = split(root(), end);
+        return new TextBuffer(split(a[0], start)[1], false);
+    }
+    // appends the text, piece by piece, in chunks of at most CHUNK chars
+    public void writeTo(Appendable out) throws IOException{
+        writeTo(root(), out);
+    }
+    private static void writeTo(Node n, Appendable out) throws IOException{
+        while(n != null){
+            writeTo(n.left, out);
+            for(int i=0;i<n.len;i+=CHUNK)
+                out.append(n.src, n.start + i, n.start + Math.min(n.len, i + CHUNK));
+            n = n.right;
+        }
+    }
+    public String toString(){
+        StringBuilder sb = new StringBuilder(length());
+        try{
+            writeTo(sb);
+        }catch(IOException e){
+            throw new AssertionError(e);
+        }
+        return sb.toString();
+    }
+}
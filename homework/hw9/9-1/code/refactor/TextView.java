@@ -1,15 +1,145 @@
+import java.util.ArrayDeque;
+
 public class TextView{
     public DisplayComponent[] component;
     public Format format;
+    private String path;
+    private TextBuffer text = TextBuffer.empty();
+    private TextBuffer opened;    // text as read, which lines indexes
+    private LineIndex lines;
+    private int firstEdit;    // every snapshot since open equals opened before this offset
+    private int top;    // char offset of the first line shown
+    private final ArrayDeque<TextBuffer> undo = new ArrayDeque<TextBuffer>();    // earlier snapshots, newest first
+    private Region textArea = new Region(0, 0, 80, 24);
+    private Region damage = textArea;    // area to repaint on the next display
+    private long frames, repaints, frameNanos, lastFrameNanos, maxFrameNanos;
     public TextView(int length, Format _format){
         component = new DisplayComponent[length];
         format = _format;
     }
-    public void display(String path){
-        String text = format.read(path);
-        //display text
+    public void open(String _path){
+        path = _path;
+        CharSequence source = format.read(path);
+        text = opened = new TextBuffer(source);
+        lines = LineIndex.open(path, source);
+        top = 0;
+        firstEdit = Integer.MAX_VALUE;
+        undo.clear();
+        damage(textArea);
+    }
+    public void setTextArea(Region area){
+        damage(textArea);
+        textArea = area;
+        damage(area);
+    }
+    // marks an area to repaint, e.g. where a component was before it moved
+    public void damage(Region r){
+        damage = damage.union(r);
+    }
+    public TextBuffer getText(){
+        return text;
+    }
+    public void insert(int pos, CharSequence s){
+        edit(pos, text.insert(pos, s));
+    }
+    public void delete(int from, int to){
+        edit(from, text.delete(from, to));
+    }
+    private void edit(int pos, TextBuffer next){
+        if(next != text){
+            firstEdit = Math.min(firstEdit, pos);
+            undo.push(text);
+            text = next;
+            damage(textArea);
+        }
+    }
+    public boolean undo(){
+        if(undo.isEmpty())
+            return false;
+        text = undo.pop();
+        damage(textArea);
+        return true;
+    }
+    // Makes line (from 0) the first line shown and returns its char offset,
+    // or -1 past the end. The index covers the text as opened, which edits
+    // leave unchanged before firstEdit: a line starting there is looked up,
+    // and a later one is counted on from the last such line, so the cost of
+    // an edit is a scan from the first edited place to the line.
+    public int scrollToLine(int line) throws InterruptedException{
+        if(lines == null)
+            return line == 0 ? 0 : -1;
+        int at = lines.lineStart(line);
+        if(text != opened && (at < 0 || at > firstEdit)){
+            int lo = 0, hi = line;    // the last line the index still holds
+            while(lo < hi){
+                int mid = (lo + hi + 1) >>> 1;
+                int s = lines.lineStart(mid);
+                if(s >= 0 && s <= firstEdit)
+                    lo = mid;
+                else
+                    hi = mid - 1;
+            }
+            at = lines.lineStart(lo);
+            for(int n=lo, len=text.length();n<line && at>=0;n++){
+                int i = at;
+                while(i < len && text.charAt(i) != '\n')
+                    i++;
+                at = i < len ? i + 1 : -1;
+            }
+        }
+        if(at >= 0 && at != top){
+            top = at;
+            damage(textArea);
+            for(int i=0;i<component.length;i++)
+                if(component[i] instanceof ScrollBar)
+                    ((ScrollBar)component[i]).setPosition(line);
+        }
+        return at;
+    }
+    // refuses a text cut at Integer.MAX_VALUE chars rather than write it short
+    public void save(){
+        if(text.isTruncated())
+            throw new IllegalStateException(path + " has more chars than can be saved");
+        format.write(path, text);
+    }
+    // Repaints only what changed since the last call: the damaged part of the
+    // text, the dirty components and any component overlapping the damage.
+    public void display(String _path){
+        if(_path != null && !_path.equals(path))
+            open(_path);
+        long start = System.nanoTime();
+        Region d = damage;
         for(int i=0;i<component.length;i++)
-            if(component[i] != null)
+            if(component[i] != null && component[i].isDirty())
+                d = d.union(component[i].getBounds());
+        if(d.intersects(textArea)){
+            //display text from top within d
+        }
+        for(int i=0;i<component.length;i++)
+            if(component[i] != null && (component[i].isDirty() || component[i].getBounds().intersects(d))){
                 component[i].show();
+                repaints++;
+            }
+        damage = Region.EMPTY;
+        lastFrameNanos = System.nanoTime() - start;
+        maxFrameNanos = Math.max(maxFrameNanos, lastFrameNanos);
+        frameNanos += lastFrameNanos;
+        frames++;
+    }
+    public long getFrames(){
+        return frames;
+    }
+    // components shown, over all frames
+    public long getRepaints(){
+        return repaints;
+    }
+    public long getLastFrameNanos(){
+        return lastFrameNanos;
+    }
+    public long getMaxFrameNanos(){
+        return maxFrameNanos;
+    }
+    public double getMeanFrameNanos(){
+        return frames == 0 ? 0 : (double)frameNanos / frames;
     }
 }
@@ -1,3 +1,8 @@
 public interface DisplayComponent{
+    // paints the component and clears its damage
     public void show();
+    public Region getBounds();
+    // true when the component changed since it was last shown
+    public boolean isDirty();
+    public void invalidate();
 }
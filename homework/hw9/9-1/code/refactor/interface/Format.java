@@ -1,3 +1,4 @@
 public interface Format{
-    public String read(String path);
+    public CharSequence read(String path);
+    public void write(String path, CharSequence text);
 }
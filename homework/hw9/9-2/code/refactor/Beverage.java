@@ -1,6 +1,5 @@
 public class Beverage extends Product{
 	public Beverage( String n, float c ){
-		name = n;
-		cost = c;
+		super( n, c );
 	}
 }
\ No newline at end of file
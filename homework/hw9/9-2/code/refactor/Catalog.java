@@ -0,0 +1,83 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// An immutable price list. Every distinct product name gets a dense id
+// 0..size()-1, found through an open-addressing hash table, and prices are
+// whole cents in a long array indexed by id. Orders can be turned into id
+// arrays once and then priced without touching any String.
+public class Catalog{
+	private final String[] names;	// by id
+	private final long[] cents;	// by id
+	private final String[] keys;	// hash table, linear probing
+	private final int[] slots;	// id of keys[i]
+	private final int mask;
+
+	public Catalog( Product[] products ){
+		ArrayList<String> n = new ArrayList<String>();
+		long[] c = new long[products.length];
+		int size = Integer.highestOneBit( Math.max( 1, products.length ) * 2 ) * 2;
+		keys = new String[size];
+		slots = new int[size];
+		mask = size - 1;
+		for( int i=0; i<products.length; i++ ){
+			int at = find( products[i].name );
+			if( keys[at] == null ){
+				keys[at] = products[i].name;
+				slots[at] = n.size();
+				n.add( products[i].name );
+			}
+			// a name offered twice is charged twice, as summateCost always did
+			c[slots[at]] += toCents( products[i].cost );
+		}
+		names = n.toArray( new String[0] );
+		cents = Arrays.copyOf( c, names.length );
+	}
+	public static long toCents( float cost ){
+		return Math.round( cost * 100.0 );
+	}
+	private static int hash( String s ){
+		int h = s.hashCode() * 0x9E3779B9;
+		return h ^ h >>> 16;
+	}
+	// slot holding name, or the empty slot where it would go
+	private int find( String name ){
+		int at = hash( name ) & mask;
+		while( keys[at] != null && !keys[at].equals( name ) )
+			at = ( at + 1 ) & mask;
+		return at;
+	}
+	public int size(){
+		return names.length;
+	}
+	// -1 if the name is not offered
+	public int id( String name ){
+		int at = find( name );
+		return keys[at] == null ? -1 : slots[at];
+	}
+	public int[] ids( String[] prod ){
+		int[] out = new int[prod.length];
+		for( int i=0; i<prod.length; i++ )
+			out[i] = id( prod[i] );
+		return out;
+	}
+	public String name( int id ){
+		return names[id];
+	}
+	public long cents( int id ){
+		return cents[id];
+	}
+	// total of one order; ids of -1 cost nothing
+	public long priceCents( int[] order ){
+		long sum = 0;
+		for( int i=0; i<order.length; i++ ){
+			int id = order[i];
+			sum += id < 0 ? 0 : cents[id];
+		}
+		return sum;
+	}
+	// totals[k] = price of orders[k]
+	public void priceCents( int[][] orders, long[] totals ){
+		for( int k=0; k<orders.length; k++ )
+			totals[k] = priceCents( orders[k] );
+	}
+}
\ No newline at end of file
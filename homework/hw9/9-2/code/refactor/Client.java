@@ -1,5 +1,11 @@
+import java.util.concurrent.CompletableFuture;
+
 public class Client{
 	public float order( NTUCoffeeShop shop, String[] prod ){
 		return shop.summateCost( prod );
 	}
+	// the price in cents, once the service gets to it
+	public CompletableFuture<Long> order( OrderService service, String[] prod ) throws InterruptedException{
+		return service.submit( prod );
+	}
 }
\ No newline at end of file
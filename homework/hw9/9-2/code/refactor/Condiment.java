@@ -1,6 +1,5 @@
 public class Condiment extends Product{
 	public Condiment( String n, float c ){
-		name = n;
-		cost = c;
+		super( n, c );
 	}
 }
\ No newline at end of file
@@ -1,17 +1,28 @@
 public class NTUCoffeeShop{
-	public Product[] productOfferings;
+	private Product[] productOfferings;
+	private Catalog catalog;	// of productOfferings, built on first use
 	public NTUCoffeeShop(){
 		productOfferings = null;
 	}
+	// the array is copied, so changing it afterwards does not change the menu
+	public void setProductOfferings( Product[] p ){
+		productOfferings = p == null ? null : p.clone();
+		catalog = null;
+	}
+	public Product[] getProductOfferings(){
+		return productOfferings == null ? null : productOfferings.clone();
+	}
+	public Catalog getCatalog(){
+		if( catalog == null )
+			catalog = new Catalog( productOfferings );
+		return catalog;
+	}
+	public long summateCents( String[] prod ){
+		Catalog c = getCatalog();
+		return c.priceCents( c.ids( prod ) );
+	}
+	// summateCents in dollars; a float is exact to the cent only below about $167,772
 	public float summateCost( String[] prod ){
-		float sum = 0;
-		for( int i=0; i<prod.length; i++ ){
-			for( int j=0; j<productOfferings.length; j++ ){
-				if( prod[i].equals( productOfferings[j].name ) ){
-					sum += productOfferings[j].cost;
-				}
-			}
-		}
-		return sum;
+		return summateCents( prod ) / 100f;
 	}
 }
\ No newline at end of file
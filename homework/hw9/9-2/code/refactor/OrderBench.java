@@ -0,0 +1,60 @@
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+// Client threads send random orders to an OrderService and wait for all prices.
+// usage: java OrderBench [clients] [orders per client] [menu size] [workers]
+public class OrderBench{
+	public static void main( String[] args ) throws Exception{
+		final int clients = args.length > 0 ? Integer.parseInt( args[0] ) : 8;
+		final int orders = args.length > 1 ? Integer.parseInt( args[1] ) : 100000;
+		int menu = args.length > 2 ? Integer.parseInt( args[2] ) : 10000;
+		int workers = args.length > 3 ? Integer.parseInt( args[3] ) : 2;
+		Product[] products = new Product[menu];
+		for( int i=0; i<menu; i++ )
+			products[i] = i % 4 == 0 ? new Condiment( "condiment" + i, 0.25f * ( i % 7 ) ) : new Beverage( "beverage" + i, 1.5f + i % 30 );
+		final NTUCoffeeShop shop = new NTUCoffeeShop();
+		shop.setProductOfferings( products );
+		final OrderService service = new OrderService( shop.getCatalog(), workers );
+		final String[] names = new String[menu];
+		for( int i=0; i<menu; i++ )
+			names[i] = products[i].name;
+		final long[] totals = new long[clients];
+		Thread[] threads = new Thread[clients];
+		long t = System.nanoTime();
+		for( int c=0; c<clients; c++ ){
+			final int id = c;
+			threads[c] = new Thread( new Runnable(){
+				public void run(){
+					Random ran = new Random( id );
+					Client client = new Client();
+					ArrayList<CompletableFuture<Long>> pending = new ArrayList<CompletableFuture<Long>>( orders );
+					try{
+						for( int i=0; i<orders; i++ ){
+							String[] prod = new String[1 + ran.nextInt( 5 )];
+							for( int k=0; k<prod.length; k++ )
+								prod[k] = names[ran.nextInt( names.length )];
+							pending.add( client.order( service, prod ) );
+						}
+						for( CompletableFuture<Long> f : pending )
+							totals[id] += f.join();
+					}catch( InterruptedException e ){
+						Thread.currentThread().interrupt();
+					}
+				}
+			} );
+			threads[c].start();
+		}
+		for( Thread th : threads )
+			th.join();
+		double seconds = ( System.nanoTime() - t ) / 1e9;
+		service.close();
+		long sum = 0;
+		for( long v : totals )
+			sum += v;
+		System.out.format( "%d orders in %.2f s: %.0f orders/s, revenue %d.%02d%n", service.getCompleted(), seconds,
+				service.getCompleted() / seconds, sum / 100, sum % 100 );
+		System.out.format( "latency p50 %.1f us, p99 %.1f us, p99.9 %.1f us%n", service.latencyPercentile( 50 ) / 1e3,
+				service.latencyPercentile( 99 ) / 1e3, service.latencyPercentile( 99.9 ) / 1e3 );
+	}
+}
\ No newline at end of file
@@ -0,0 +1,139 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+// Prices orders sent from any number of threads. submit() puts the order on a
+// bounded queue and returns a future; worker threads take up to BATCH orders
+// at a time and price them against the catalog in one pass. Workers come from
+// the given ThreadFactory, so a runtime with virtual threads can supply those.
+public class OrderService{
+	static final int BATCH = 256;
+	private static final int[] NONE = new int[0];
+	private final ArrayBlockingQueue<Pending> queue;
+	private final Thread[] workers;
+	private volatile Catalog catalog;
+	private volatile boolean running = true;
+	private final long started = System.nanoTime();
+	private long completed;
+	private final long[] latency = new long[1 << 16];	// submit to completion of recent orders, ns
+
+	private static class Pending{
+		final String[] prod;
+		final long submitted = System.nanoTime();
+		final CompletableFuture<Long> result = new CompletableFuture<Long>();
+		Pending( String[] p ){
+			prod = p;
+		}
+	}
+
+	public OrderService( Catalog c, int threads, int capacity, ThreadFactory factory ){
+		catalog = c;
+		queue = new ArrayBlockingQueue<Pending>( capacity );
+		workers = new Thread[threads];
+		for( int i=0; i<threads; i++ ){
+			workers[i] = factory.newThread( new Runnable(){
+				public void run(){
+					work();
+				}
+			} );
+			workers[i].start();
+		}
+	}
+	public OrderService( Catalog c, int threads ){
+		this( c, threads, 1 << 16, new ThreadFactory(){
+			public Thread newThread( Runnable r ){
+				Thread t = new Thread( r, "order-worker" );
+				t.setDaemon( true );
+				return t;
+			}
+		} );
+	}
+	// later orders are priced with the new menu
+	public void setCatalog( Catalog c ){
+		catalog = c;
+	}
+	// the price in cents; blocks while the queue is full, and fails the
+	// order if the service is closed before it is queued
+	public CompletableFuture<Long> submit( String[] prod ) throws InterruptedException{
+		Pending p = new Pending( prod );
+		boolean queued = false;
+		while( running && !( queued = queue.offer( p, 10, TimeUnit.MILLISECONDS ) ) );
+		// close() may have drained the queue for the last time before the
+		// order got in; whoever removes it from the queue completes it
+		if( !queued || !running && queue.remove( p ) )
+			closed( p );
+		return p.result;
+	}
+	private static void closed( Pending p ){
+		p.result.completeExceptionally( new IllegalStateException( "service closed" ) );
+	}
+	private void work(){
+		ArrayList<Pending> batch = new ArrayList<Pending>( BATCH );
+		int[][] ids = new int[BATCH][];
+		long[] totals = new long[BATCH];
+		long[] done = new long[BATCH];
+		while( running || !queue.isEmpty() ){
+			try{
+				Pending first = queue.poll( 10, TimeUnit.MILLISECONDS );
+				if( first == null )
+					continue;
+				batch.add( first );
+			}catch( InterruptedException e ){
+				Thread.currentThread().interrupt();
+				return;
+			}
+			queue.drainTo( batch, BATCH - 1 );
+			int n = batch.size();
+			Catalog c = catalog;
+			// a bad order fails alone; the rest of the batch is still priced
+			for( int i=0; i<n; i++ ){
+				try{
+					ids[i] = c.ids( batch.get( i ).prod );
+				}catch( RuntimeException e ){
+					ids[i] = NONE;
+					batch.get( i ).result.completeExceptionally( e );
+				}
+			}
+			c.priceCents( n == BATCH ? ids : Arrays.copyOf( ids, n ), totals );
+			int priced = 0;
+			for( int i=0; i<n; i++ ){
+				Pending p = batch.get( i );
+				if( p.result.complete( totals[i] ) )
+					done[priced++] = System.nanoTime() - p.submitted;
+			}
+			record( done, priced );
+			batch.clear();
+		}
+	}
+	private synchronized void record( long[] nanos, int n ){
+		for( int i=0; i<n; i++ )
+			latency[(int)( completed++ % latency.length )] = nanos[i];
+	}
+	// stops taking orders, prices those already queued and waits for the workers
+	public void close() throws InterruptedException{
+		running = false;
+		for( int i=0; i<workers.length; i++ )
+			workers[i].join();
+		// orders that slipped in after the workers left
+		for( Pending p; ( p = queue.poll() ) != null; )
+			closed( p );
+	}
+	public synchronized long getCompleted(){
+		return completed;
+	}
+	public synchronized double ordersPerSecond(){
+		return completed / ( ( System.nanoTime() - started ) / 1e9 );
+	}
+	// submit to completion latency percentile (0-100) over the recent orders, ns
+	public synchronized long latencyPercentile( double pct ){
+		int n = (int)Math.min( completed, latency.length );
+		if( n == 0 )
+			return 0;
+		long[] sorted = Arrays.copyOf( latency, n );
+		Arrays.sort( sorted );
+		return sorted[Math.max( 0, Math.min( n-1, (int)Math.ceil( pct / 100 * n ) - 1 ) )];
+	}
+}
\ No newline at end of file
@@ -1,4 +1,8 @@
 public abstract class Product{
-	public String name;
-	public float cost;
+	public final String name;
+	public final float cost;
+	public Product( String n, float c ){
+		name = n;
+		cost = c;
+	}
 }
\ No newline at end of file